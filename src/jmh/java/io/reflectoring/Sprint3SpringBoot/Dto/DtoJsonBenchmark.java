@@ -0,0 +1,89 @@
+package io.reflectoring.Sprint3SpringBoot.Dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reflectoring.Sprint3SpringBoot.Enums.SusceptibilityIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialisation and deserialisation of {@link FountainDto} and {@link WaterAnalysisDto} lists,
+ * the payloads the proxy controllers and the Retrofit clients convert on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoJsonBenchmark {
+
+    private static final TypeReference<List<FountainDto>> FOUNTAINS = new TypeReference<>() {};
+    private static final TypeReference<List<WaterAnalysisDto>> ANALYSES = new TypeReference<>() {};
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private List<FountainDto> fountains;
+    private List<WaterAnalysisDto> analyses;
+
+    private byte[] fountainsJson;
+    private byte[] analysesJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        SusceptibilityIndex[] indexes = SusceptibilityIndex.values();
+        fountains = new ArrayList<>(size);
+        analyses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            FountainDto fountain = new FountainDto();
+            fountain.setId(i + 1);
+            fountain.setDescription("Fountain " + (i + 1));
+            fountain.setSusceptibilityIndex(indexes[random.nextInt(indexes.length)]);
+            fountain.setContinuousUseDeviceId(random.nextInt(50) + 1);
+            fountain.setDrinkable(random.nextBoolean());
+            fountain.setLatitude(38 + random.nextDouble());
+            fountain.setLongitude(-9 + random.nextDouble());
+            fountains.add(fountain);
+
+            WaterAnalysisDto analysis = new WaterAnalysisDto();
+            analysis.id = i + 1;
+            analysis.setFountainId(random.nextInt(500) + 1);
+            analysis.setDeviceId(random.nextInt(50) + 1);
+            analysis.setRadonConcentration(random.nextDouble() * 300.0);
+            analysis.setDate(LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366)));
+            analyses.add(analysis);
+        }
+        fountainsJson = objectMapper.writeValueAsBytes(fountains);
+        analysesJson = objectMapper.writeValueAsBytes(analyses);
+    }
+
+    @Benchmark
+    public byte[] writeFountains() throws IOException {
+        return objectMapper.writeValueAsBytes(fountains);
+    }
+
+    @Benchmark
+    public List<FountainDto> readFountains() throws IOException {
+        return objectMapper.readValue(fountainsJson, FOUNTAINS);
+    }
+
+    @Benchmark
+    public byte[] writeAnalyses() throws IOException {
+        return objectMapper.writeValueAsBytes(analyses);
+    }
+
+    @Benchmark
+    public List<WaterAnalysisDto> readAnalyses() throws IOException {
+        return objectMapper.readValue(analysesJson, ANALYSES);
+    }
+}
@@ -0,0 +1,69 @@
+package io.reflectoring.Sprint3SpringBoot.JWT;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures token generation, parsing and validation in {@link JwtUtil}.
+ * With a cache of one entry the parse benchmarks cycle through more tokens than fit, so every call
+ * verifies the signature; with the default size every call after the first is a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final int TOKENS = 16;
+
+    @Param({"1", "10000"})
+    public int cacheMaxSize;
+
+    private JwtUtil jwtUtil;
+
+    private String[] tokens;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "jojojokikikihuhuhugygygybynymytr");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(new SimpleMeterRegistry()));
+        jwtUtil.init();
+
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = jwtUtil.generateToken("user" + i + "@example.com", i + 1, Role.Client);
+        }
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("user@example.com", 1, Role.Client);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtUtil.parseClaims(nextToken());
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtil.validateJwtToken(nextToken());
+    }
+
+    private String nextToken() {
+        next = (next + 1) % TOKENS;
+        return tokens[next];
+    }
+}
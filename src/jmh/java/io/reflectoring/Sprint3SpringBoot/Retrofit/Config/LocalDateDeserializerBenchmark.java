@@ -0,0 +1,44 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link LocalDateDeserializer} on a single date token, against {@link LocalDate#parse(CharSequence)}
+ * on the same text as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalDateDeserializerBenchmark {
+
+    private static final String JSON = "\"2024-05-17\"";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final LocalDateDeserializer deserializer = new LocalDateDeserializer();
+
+    @Benchmark
+    public LocalDate deserialize() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(JSON)) {
+            parser.nextToken();
+            return deserializer.deserialize(parser, null);
+        }
+    }
+
+    @Benchmark
+    public LocalDate isoParse() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(JSON)) {
+            parser.nextToken();
+            return LocalDate.parse(parser.getText());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sequential and fork-join radon reductions across input sizes, to check where
+ * {@link RadonReducer#PARALLEL_THRESHOLD} should sit on the target hardware.
+ * The {@code auto} benchmark is what {@link RadonColumnStore} runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RadonReducerBenchmark {
+
+    @Param({"1000", "10000", "32768", "100000", "1000000", "10000000"})
+    public int size;
+
+    private double[] radon;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        radon = new double[size];
+        for (int i = 0; i < size; i++) {
+            radon[i] = random.nextDouble() * 300.0;
+        }
+    }
+
+    @Benchmark
+    public RadonSummary sequential() {
+        return RadonReducer.sequential(radon, 0, size);
+    }
+
+    @Benchmark
+    public RadonSummary forkJoin() {
+        return RadonReducer.forkJoin(radon, 0, size, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public RadonSummary auto() {
+        return RadonReducer.summarize(radon, 0, size);
+    }
+}
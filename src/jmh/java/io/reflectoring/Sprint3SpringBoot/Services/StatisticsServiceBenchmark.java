@@ -0,0 +1,75 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRepository;
+import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRollupRepository;
+import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link StatisticsService#createStatistics(LocalDate)} against a loaded {@link RadonColumnStore}:
+ * the day summary, the quantile sketch and the rollup refresh. The repositories are Mockito mocks that
+ * return empty results, so database time is left out; {@code summarize} and {@code sketch} isolate the
+ * two in-memory steps.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsServiceBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int readings;
+
+    private static final int DAYS = 365;
+
+    private RadonColumnStore radonColumnStore;
+
+    private StatisticsService statisticsService;
+
+    private LocalDate date;
+
+    @Setup
+    public void setUp() {
+        LocalDate first = LocalDate.now().minusDays(DAYS - 1);
+        Random random = new Random(42);
+        radonColumnStore = new RadonColumnStore(0);
+        radonColumnStore.load(consumer -> {
+            for (int i = 0; i < readings; i++) {
+                consumer.accept(i + 1, random.nextInt(500), random.nextInt(50),
+                        (int) first.plusDays(random.nextInt(DAYS)).toEpochDay(), random.nextDouble() * 300.0);
+            }
+        });
+        date = first.plusDays(DAYS / 2);
+
+        statisticsService = new StatisticsService(stub(WaterAnalysisService.class), stub(StatisticsRepository.class),
+                stub(UserRepository.class), radonColumnStore, stub(StatisticsRollupRepository.class));
+    }
+
+    // Stub-only mocks do not record invocations, so they do not grow over a long run
+    private static <T> T stub(Class<T> type) {
+        return Mockito.mock(type, Mockito.withSettings().stubOnly());
+    }
+
+    @Benchmark
+    public Object createStatistics() {
+        return statisticsService.createStatistics(date);
+    }
+
+    @Benchmark
+    public RadonSummary summarize() {
+        return radonColumnStore.summarize(date, date);
+    }
+
+    @Benchmark
+    public RadonSketch sketch() {
+        return radonColumnStore.sketch(date, date);
+    }
+}
@@ -0,0 +1,150 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import io.reflectoring.Sprint3SpringBoot.Models.User;
+import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IFountainService;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FanOutExecutor;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import okhttp3.*;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UserService#getUserFavourites(int)} against a stubbed {@link IFountainService}.
+ * The stub is the real Retrofit client on an OkHttp interceptor that answers from memory, so the
+ * Retrofit call and Jackson conversion are measured but no network is involved.
+ * With {@code cached=false} the fountain cache is emptied before every call, so each call goes upstream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceFavouritesBenchmark {
+
+    private static final int USER_ID = 1;
+
+    private static final int FOUNTAINS = 1000;
+
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    @Param({"10", "100"})
+    public int favourites;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private IFountainService fountainApi;
+
+    private UserRepository userRepository;
+    private WaterAnalysisService waterAnalysisService;
+
+    private FanOutExecutor fanOutExecutor;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<Integer, FountainDto> fountains = new LinkedHashMap<>();
+        for (int i = 1; i <= FOUNTAINS; i++) {
+            FountainDto fountain = new FountainDto();
+            fountain.setId(i);
+            fountain.setDescription("Fountain " + i);
+            fountain.setContinuousUseDeviceId(i % 50 + 1);
+            fountains.put(i, fountain);
+        }
+
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> respond(chain.request(), fountains, objectMapper))
+                .build();
+        fountainApi = new Retrofit.Builder()
+                .baseUrl("http://upstream.invalid/api/")
+                .client(client)
+                .addConverterFactory(JacksonConverterFactory.create(objectMapper))
+                .build()
+                .create(IFountainService.class);
+
+        List<Integer> favouriteIds = new ArrayList<>();
+        Random random = new Random(42);
+        while (favouriteIds.size() < favourites) {
+            int id = random.nextInt(FOUNTAINS) + 1;
+            if (!favouriteIds.contains(id)) {
+                favouriteIds.add(id);
+            }
+        }
+        User user = new User("Client", "client@example.com", "password", Role.Client);
+        user.setId(USER_ID);
+        user.setFavourites(new HashSet<>(favouriteIds));
+
+        // Stub-only mocks do not record invocations, so they do not grow over a long run
+        userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        waterAnalysisService = Mockito.mock(WaterAnalysisService.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findFavouriteIds(USER_ID)).thenReturn(favouriteIds.stream().sorted().toList());
+        fanOutExecutor = new FanOutExecutor(16, 5000);
+        userService = newUserService();
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyCache() {
+        if (!cached) {
+            userService = newUserService();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fanOutExecutor.shutdown();
+    }
+
+    @Benchmark
+    public List<FountainDto> getUserFavourites() {
+        return userService.getUserFavourites(USER_ID);
+    }
+
+    private UserService newUserService() {
+        FountainService fountainService = new FountainService(fountainApi, 1000, 60000, 300000, new SimpleMeterRegistry());
+        return new UserService(userRepository, fountainService, waterAnalysisService, fanOutExecutor);
+    }
+
+    private static Response respond(Request request, Map<Integer, FountainDto> fountains, ObjectMapper objectMapper) throws IOException {
+        List<String> segments = request.url().pathSegments();
+        String last = segments.get(segments.size() - 1);
+        Object body;
+        if (last.equals("batch")) {
+            List<FountainDto> found = new ArrayList<>();
+            for (String id : request.url().queryParameterValues("ids")) {
+                FountainDto fountain = fountains.get(Integer.parseInt(id));
+                if (fountain != null) {
+                    found.add(fountain);
+                }
+            }
+            body = found;
+        } else if (last.equals("fountains")) {
+            body = fountains.values();
+        } else {
+            body = fountains.get(Integer.parseInt(last));
+        }
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(objectMapper.writeValueAsBytes(body), JSON))
+                .build();
+    }
+}
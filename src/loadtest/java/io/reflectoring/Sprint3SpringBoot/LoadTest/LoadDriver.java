@@ -0,0 +1,236 @@
+package io.reflectoring.Sprint3SpringBoot.LoadTest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Closed-loop traffic driver: a fixed number of workers each send one request, wait for the response and
+ * send the next, picking routes at random by weight. Latencies are recorded per route and reported as
+ * p50, p99 and max together with the throughput.
+ */
+public class LoadDriver {
+
+    private final URI baseUri;
+    private final int concurrency;
+    private final HttpClient client;
+
+    private final List<Route> routes = new ArrayList<>();
+    private int totalWeight;
+
+    /**
+     * @param baseUri     The address of the application under test, e.g. {@code http://localhost:8080/}.
+     * @param concurrency The number of concurrent workers.
+     */
+    public LoadDriver(URI baseUri, int concurrency) {
+        this.baseUri = baseUri;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Adds a route to the traffic mix.
+     *
+     * @param name    The name shown in the report.
+     * @param weight  The relative share of requests sent to this route.
+     * @param request Builds a request, relative to the base URI, from a random source.
+     * @return this driver.
+     */
+    public LoadDriver route(String name, int weight, Function<Random, HttpRequest.Builder> request) {
+        routes.add(new Route(name, weight, request));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * Sends a single request outside of any measurement.
+     *
+     * @return the response body.
+     * @throws IOException If the request fails or does not answer with a 2xx status.
+     */
+    public String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(response.request().uri() + " answered " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    /**
+     * @return a request builder for a path relative to the base URI.
+     */
+    public HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Runs the traffic mix for the given duration.
+     *
+     * @return The latencies recorded per route.
+     */
+    public Report run(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Latencies[]>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> work(deadline)));
+            }
+        }
+
+        Latencies[] merged = new Latencies[routes.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            merged[r] = new Latencies();
+        }
+        for (Future<Latencies[]> worker : workers) {
+            try {
+                Latencies[] recorded = worker.get();
+                for (int r = 0; r < routes.size(); r++) {
+                    merged[r].addAll(recorded[r]);
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Load worker failed", e.getCause());
+            }
+        }
+        return new Report(routes, merged, duration);
+    }
+
+    private Latencies[] work(long deadline) {
+        Random random = ThreadLocalRandom.current();
+        Latencies[] recorded = new Latencies[routes.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            recorded[r] = new Latencies();
+        }
+
+        while (System.nanoTime() < deadline) {
+            int r = pick(random);
+            HttpRequest request = routes.get(r).request.apply(random).build();
+            long start = System.nanoTime();
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() / 100 == 2;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            recorded[r].add(System.nanoTime() - start, ok);
+        }
+        return recorded;
+    }
+
+    private int pick(Random random) {
+        int ticket = random.nextInt(totalWeight);
+        for (int r = 0; r < routes.size(); r++) {
+            ticket -= routes.get(r).weight;
+            if (ticket < 0) {
+                return r;
+            }
+        }
+        return routes.size() - 1;
+    }
+
+    private record Route(String name, int weight, Function<Random, HttpRequest.Builder> request) {
+    }
+
+    /**
+     * Growable array of latencies in nanoseconds, plus an error count.
+     */
+    static final class Latencies {
+
+        private long[] values = new long[1024];
+        private int size;
+        private int errors;
+
+        void add(long nanos, boolean ok) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Latencies other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        /**
+         * @return the latency at the quantile, in milliseconds; sorts the recorded values.
+         */
+        double percentileMs(double quantile) {
+            if (size == 0) {
+                return Double.NaN;
+            }
+            Arrays.sort(values, 0, size);
+            int index = (int) Math.ceil(quantile * size) - 1;
+            return values[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public static final class Report {
+
+        private final List<Route> routes;
+        private final Latencies[] latencies;
+        private final Duration duration;
+
+        private Report(List<Route> routes, Latencies[] latencies, Duration duration) {
+            this.routes = routes;
+            this.latencies = latencies;
+            this.duration = duration;
+        }
+
+        /**
+         * @return the number of requests that answered with a 2xx status per second, over all routes.
+         */
+        public double getThroughput() {
+            long ok = 0;
+            for (Latencies route : latencies) {
+                ok += route.size - route.errors;
+            }
+            return ok / (duration.toNanos() / 1e9);
+        }
+
+        public void print(PrintStream out) {
+            double seconds = duration.toNanos() / 1e9;
+            Latencies all = new Latencies();
+            out.printf("%-28s %9s %7s %9s %9s %9s %9s%n", "route", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+            for (int r = 0; r < routes.size(); r++) {
+                Latencies route = latencies[r];
+                all.addAll(route);
+                printRow(out, routes.get(r).name, route, seconds);
+            }
+            printRow(out, "total", all, seconds);
+        }
+
+        private static void printRow(PrintStream out, String name, Latencies route, double seconds) {
+            out.printf("%-28s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", name, route.size, route.errors, route.size / seconds,
+                    route.percentileMs(0.50), route.percentileMs(0.99), route.percentileMs(1.0));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.reflectoring.Sprint3SpringBoot.LoadTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reflectoring.Sprint3SpringBoot.Sprint3SpringBootApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * End-to-end load test. Starts the {@link UpstreamStubServer}, starts the application with the {@code loadtest}
+ * profile (in-memory H2 instead of SQL Server, upstream calls sent to the stub), seeds client users with
+ * favourites, then replays a mix of user, statistics and proxy traffic and prints p50/p99 latency and throughput.
+ *
+ * <p>Run with {@code mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--duration-s=60 --concurrency=128"}.
+ * Options, with their defaults: {@code --duration-s=30}, {@code --warmup-s=10}, {@code --concurrency=64},
+ * {@code --latency-ms=20}, {@code --latency-jitter-ms=10}, {@code --fountains=500}, {@code --analyses=20000},
+ * {@code --users=20}, {@code --favourites=10} and {@code --virtual-threads=false}.</p>
+ */
+public class LoadTestMain {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int duration = intOption(options, "duration-s", 30);
+        int warmup = intOption(options, "warmup-s", 10);
+        int concurrency = intOption(options, "concurrency", 64);
+        int fountains = intOption(options, "fountains", 500);
+        int analyses = intOption(options, "analyses", 20000);
+        int users = intOption(options, "users", 20);
+        int favourites = intOption(options, "favourites", 10);
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "false"));
+
+        try (UpstreamStubServer upstream = new UpstreamStubServer(fountains, analyses,
+                intOption(options, "latency-ms", 20), intOption(options, "latency-jitter-ms", 10))) {
+
+            SpringApplication application = new SpringApplication(Sprint3SpringBootApplication.class);
+            application.setAdditionalProfiles("loadtest");
+            try (ConfigurableApplicationContext context = application.run(
+                    "--server.port=0",
+                    "--upstream.base-url=" + upstream.getBaseUrl(),
+                    "--spring.threads.virtual.enabled=" + virtualThreads)) {
+
+                String port = context.getEnvironment().getProperty("local.server.port");
+                LoadDriver driver = new LoadDriver(URI.create("http://127.0.0.1:" + port + "/"), concurrency);
+                List<Integer> userIds = seedUsers(driver, users, favourites, fountains);
+                addRoutes(driver, userIds, fountains, analyses, favourites);
+
+                System.out.printf("Warming up for %ds with %d workers (virtual threads: %s)%n", warmup, concurrency, virtualThreads);
+                driver.run(Duration.ofSeconds(warmup));
+
+                System.out.printf("Measuring for %ds%n", duration);
+                int upstreamBefore = upstream.getRequests();
+                LoadDriver.Report report = driver.run(Duration.ofSeconds(duration));
+                report.print(System.out);
+                System.out.printf("Upstream requests: %d (%.1f/s)%n", upstream.getRequests() - upstreamBefore,
+                        (upstream.getRequests() - upstreamBefore) / (double) duration);
+            }
+        }
+    }
+
+    private static void addRoutes(LoadDriver driver, List<Integer> userIds, int fountains, int analyses, int favourites) {
+        int month = LocalDate.now().getMonthValue();
+        driver.route("GET fountains", 8, random -> driver.request("api/fountains"))
+                .route("GET fountains/{id}", 20, random -> driver.request("api/fountains/" + (random.nextInt(fountains) + 1)))
+                .route("GET wateranalysis/{id}", 10, random -> driver.request("api/wateranalysis/" + (random.nextInt(analyses) + 1)))
+                .route("GET devices", 4, random -> driver.request("api/devices"))
+                .route("GET continuousUseDevice/{id}", 4, random -> driver.request("api/continuousUseDevice/" + (random.nextInt(50) + 1)))
+                .route("GET user/{id}", 5, random -> driver.request("api/user/" + pick(userIds, random)))
+                .route("GET user/favorites/{id}", 15, random -> driver.request("api/user/favorites/" + pick(userIds, random)))
+                .route("POST favorites/analysis", 10, random -> json(driver.request("api/wateranalysis/favorites/analysis"),
+                        favouritesJson(randomIds(random, favourites, fountains))))
+                .route("POST statistics", 2, random -> json(driver.request("api/statistics"), "{}"))
+                .route("GET statistics/bymonth", 7, random -> driver.request("api/statistics/bymonth/" + month + "?summary=true"))
+                .route("GET statistics/fountain/{id}", 15, random -> driver.request("api/statistics/fountain/" + (random.nextInt(fountains) + 1)));
+    }
+
+    /**
+     * Signs up client users, each with random favourite fountains, and returns their ids.
+     */
+    private static List<Integer> seedUsers(LoadDriver driver, int users, int favourites, int fountains) throws Exception {
+        Random random = new Random(7);
+        List<Integer> userIds = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String email = "client" + i + "@loadtest.local";
+            String credentials = "{\"name\":\"Client " + i + "\",\"email\":\"" + email + "\",\"password\":\"password\",\"role\":\"Client\"}";
+            driver.send(json(driver.request("api/auth/signup"), credentials));
+            JsonNode signin = objectMapper.readTree(driver.send(json(driver.request("api/auth/signin"), credentials)));
+            int userId = signin.get("id").asInt();
+            for (Integer fountainId : randomIds(random, favourites, fountains)) {
+                driver.send(driver.request("api/user/addfavorite/" + userId + "/" + fountainId).POST(HttpRequest.BodyPublishers.noBody()));
+            }
+            userIds.add(userId);
+        }
+        return userIds;
+    }
+
+    private static HttpRequest.Builder json(HttpRequest.Builder request, String body) {
+        return request.header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static String favouritesJson(List<Integer> ids) {
+        return "{\"favoriteFountainIds\":" + ids + "}";
+    }
+
+    private static List<Integer> randomIds(Random random, int count, int bound) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        while (ids.size() < Math.min(count, bound)) {
+            ids.add(random.nextInt(bound) + 1);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static int pick(List<Integer> ids, Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+}
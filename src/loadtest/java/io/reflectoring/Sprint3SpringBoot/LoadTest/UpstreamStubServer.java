@@ -0,0 +1,244 @@
+package io.reflectoring.Sprint3SpringBoot.LoadTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.reflectoring.Sprint3SpringBoot.Dto.ContinuousUseDeviceDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.DeviceDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Enums.SusceptibilityIndex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the upstream .NET API, built on the JDK HTTP server.
+ * Serves generated {@code fountains}, {@code wateranalysis}, {@code device} and {@code continuoususedevice}
+ * payloads under {@code /api/}, after a configurable latency. Listings are serialised once at startup.
+ * Analyses are spread over the last year, including today, so statistics can be created.
+ */
+public class UpstreamStubServer implements AutoCloseable {
+
+    private static final int DEVICES = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private final long latencyMs;
+    private final long latencyJitterMs;
+
+    private final Map<Integer, FountainDto> fountains = new LinkedHashMap<>();
+    private final Map<Integer, WaterAnalysisDto> analyses = new LinkedHashMap<>();
+    private final Map<Integer, DeviceDto> devices = new LinkedHashMap<>();
+    private final Map<Integer, ContinuousUseDeviceDto> continuousUseDevices = new LinkedHashMap<>();
+
+    private final byte[] fountainsJson;
+    private final byte[] analysesJson;
+    private final byte[] devicesJson;
+    private final byte[] continuousUseDevicesJson;
+
+    private final AtomicInteger nextAnalysisId;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Generates the payloads and starts the server on a free port.
+     *
+     * @param fountainCount   The number of fountains served.
+     * @param analysisCount   The number of water analyses served.
+     * @param latencyMs       The delay added to every response.
+     * @param latencyJitterMs The maximum random delay added on top of {@code latencyMs}.
+     */
+    public UpstreamStubServer(int fountainCount, int analysisCount, long latencyMs, long latencyJitterMs) throws IOException {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+
+        Random random = new Random(42);
+        SusceptibilityIndex[] indexes = SusceptibilityIndex.values();
+        LocalDate today = LocalDate.now();
+        for (int id = 1; id <= DEVICES; id++) {
+            DeviceDto device = new DeviceDto();
+            device.id = id;
+            device.model = "RD-" + (200 + id % 5);
+            device.serialNumber = "SN" + (100000 + id);
+            device.expirationDate = today.plusDays(30 + random.nextInt(700));
+            devices.put(id, device);
+
+            ContinuousUseDeviceDto continuous = new ContinuousUseDeviceDto();
+            continuous.id = id;
+            continuous.model = "CU-" + (100 + id % 3);
+            continuous.serialNumber = "CU" + (200000 + id);
+            continuous.expirationDate = today.plusDays(30 + random.nextInt(700));
+            continuous.fountainId = id <= fountainCount ? id : null;
+            continuous.analysisFrequency = 7;
+            continuous.lastAnalysisDate = today.minusDays(random.nextInt(7));
+            continuousUseDevices.put(id, continuous);
+        }
+        for (int id = 1; id <= fountainCount; id++) {
+            FountainDto fountain = new FountainDto();
+            fountain.setId(id);
+            fountain.setDescription("Fountain " + id);
+            fountain.setSusceptibilityIndex(indexes[random.nextInt(indexes.length)]);
+            fountain.setContinuousUseDeviceId(id <= DEVICES ? id : 0);
+            fountain.setDrinkable(random.nextInt(10) < 8);
+            fountain.setLatitude(38.70 + random.nextDouble() * 0.1);
+            fountain.setLongitude(-9.20 + random.nextDouble() * 0.1);
+            fountains.put(id, fountain);
+        }
+        for (int id = 1; id <= analysisCount; id++) {
+            WaterAnalysisDto analysis = new WaterAnalysisDto();
+            analysis.id = id;
+            analysis.setFountainId(random.nextInt(fountainCount) + 1);
+            analysis.setDeviceId(random.nextInt(DEVICES) + 1);
+            // Radon in water is roughly log-normal; a median near 40 puts a few percent above the limit of 100
+            analysis.setRadonConcentration(Math.round(Math.exp(3.7 + random.nextGaussian() * 0.6) * 10) / 10.0);
+            analysis.setDate(today.minusDays(id % 20 == 0 ? 0 : random.nextInt(365)));
+            analyses.put(id, analysis);
+        }
+        nextAnalysisId = new AtomicInteger(analysisCount + 1);
+
+        fountainsJson = objectMapper.writeValueAsBytes(fountains.values());
+        analysesJson = objectMapper.writeValueAsBytes(analyses.values());
+        devicesJson = objectMapper.writeValueAsBytes(devices.values());
+        continuousUseDevicesJson = objectMapper.writeValueAsBytes(continuousUseDevices.values());
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the base URL to configure as {@code upstream.base-url}.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+    }
+
+    /**
+     * @return the number of requests served so far.
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            delay();
+
+            String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+            String method = exchange.getRequestMethod();
+            String resource = path[0];
+            Integer id = path.length > 1 && path[1].chars().allMatch(Character::isDigit) ? Integer.valueOf(path[1]) : null;
+
+            switch (resource) {
+                case "fountains" -> {
+                    if (path.length > 1 && path[1].equals("batch")) {
+                        List<FountainDto> found = new ArrayList<>();
+                        for (Integer fountainId : queryIds(exchange.getRequestURI().getRawQuery())) {
+                            if (fountains.containsKey(fountainId)) {
+                                found.add(fountains.get(fountainId));
+                            }
+                        }
+                        send(exchange, 200, objectMapper.writeValueAsBytes(found));
+                    } else {
+                        serve(exchange, method, id, fountains, fountainsJson, FountainDto.class);
+                    }
+                }
+                case "wateranalysis" -> {
+                    if (method.equals("POST") && id == null) {
+                        WaterAnalysisDto created = read(exchange.getRequestBody(), WaterAnalysisDto.class);
+                        created.id = nextAnalysisId.getAndIncrement();
+                        send(exchange, 201, objectMapper.writeValueAsBytes(created));
+                    } else {
+                        serve(exchange, method, id, analyses, analysesJson, WaterAnalysisDto.class);
+                    }
+                }
+                case "device" -> serve(exchange, method, id, devices, devicesJson, DeviceDto.class);
+                case "continuoususedevice" -> serve(exchange, method, id, continuousUseDevices, continuousUseDevicesJson, ContinuousUseDeviceDto.class);
+                default -> send(exchange, 404, new byte[0]);
+            }
+        }
+    }
+
+    /**
+     * Serves a listing, a single entry, or echoes the body of a write. Writes are not stored, so the
+     * payloads stay the same for the whole run.
+     */
+    private <T> void serve(HttpExchange exchange, String method, Integer id, Map<Integer, T> entries, byte[] listing, Class<T> type) throws IOException {
+        if (method.equals("GET")) {
+            if (id == null) {
+                send(exchange, 200, listing);
+            } else if (entries.containsKey(id)) {
+                send(exchange, 200, objectMapper.writeValueAsBytes(entries.get(id)));
+            } else {
+                send(exchange, 404, new byte[0]);
+            }
+        } else if (method.equals("POST") || method.equals("PUT")) {
+            send(exchange, method.equals("POST") ? 201 : 200, objectMapper.writeValueAsBytes(read(exchange.getRequestBody(), type)));
+        } else {
+            send(exchange, 405, new byte[0]);
+        }
+    }
+
+    private <T> T read(InputStream body, Class<T> type) throws IOException {
+        try (body) {
+            return objectMapper.readValue(body, type);
+        }
+    }
+
+    private static List<Integer> queryIds(String query) {
+        List<Integer> ids = new ArrayList<>();
+        if (query == null) {
+            return ids;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("ids=")) {
+                ids.add(Integer.valueOf(parameter.substring("ids=".length())));
+            }
+        }
+        return ids;
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void delay() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.reflectoring.Sprint3SpringBoot.Cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical loads: while a load for a key is in flight, other callers asking for
+ * the same key wait for it and share its result instead of starting their own.
+ * Nothing is kept once the load completes, so this is not a cache; the next call after completion loads again.
+ * Blocking and asynchronous callers share the same in-flight loads. The shared result must not be modified.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs the loader on the calling thread unless a load for the key is already in flight,
+     * in which case the calling thread waits for that load.
+     *
+     * @param key    The key identifying the load.
+     * @param loader The blocking load.
+     * @return The loaded value.
+     */
+    public V call(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return join(existing);
+        }
+
+        loads.incrementAndGet();
+        try {
+            V value = loader.get();
+            inFlight.remove(key, flight);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the loader unless a load for the key is already in flight, in which case that load is shared.
+     * Cancelling the returned future does not cancel the shared load.
+     *
+     * @param key    The key identifying the load.
+     * @param loader Starts the asynchronous load.
+     * @return A future for the loaded value.
+     */
+    public CompletableFuture<V> callAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.copy();
+        }
+
+        loads.incrementAndGet();
+        try {
+            loader.get().whenComplete((value, e) -> {
+                inFlight.remove(key, flight);
+                if (e != null) {
+                    flight.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * @return the number of loads that were actually started.
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    /**
+     * @return the number of calls that shared another caller's load.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package io.reflectoring.Sprint3SpringBoot.Cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Small in-process cache bounded by size and time to live.
+ * When the cache is full the least recently used entry is evicted. Expired entries are dropped
+ * on access. Hit, miss, eviction and expiration counters are kept for monitoring and can be
+ * published to Micrometer with {@link #bindTo(MeterRegistry, String)}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class TtlCache<K, V> {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize The maximum number of entries kept.
+     * @param ttl     How long an entry stays valid after being written.
+     */
+    public TtlCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    TtlCache(int maxSize, Duration ttl, LongSupplier clock) {
+        if (maxSize <= 0 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Cache size and TTL must be higher than zero.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or null if it is absent or expired.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt - clock.getAsLong() <= 0) {
+            entries.remove(key);
+            expirations.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Stores a value with the default time to live. A null value invalidates the key.
+     */
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /**
+     * Stores a value that expires after {@code ttl}, capped at the cache's default time to live.
+     * A null value invalidates the key.
+     */
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(ttl.toNanos(), ttlNanos));
+    }
+
+    private synchronized void put(K key, V value, long ttl) {
+        if (value == null || ttl <= 0) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry<>(value, clock.getAsLong() + ttl));
+    }
+
+    /**
+     * Removes the entry for the key, if any.
+     */
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry matching the predicate.
+     */
+    public synchronized void invalidateIf(BiPredicate<K, V> predicate) {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (predicate.test(e.getKey(), e.getValue().value)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), expirations.get(), size(), maxSize);
+    }
+
+    /**
+     * Registers the cache counters with Micrometer, using its usual cache meter names:
+     * {@code cache.gets} (tagged {@code result=hit|miss}), {@code cache.evictions}, {@code cache.expirations}
+     * and the {@code cache.size} and {@code cache.max.size} gauges, all tagged {@code cache=<name>}.
+     *
+     * @param meterRegistry The registry to publish to.
+     * @param name          The value of the {@code cache} tag.
+     */
+    public void bindTo(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("cache.gets", this, cache -> cache.hits.get())
+                .description("Cache lookups that found a live entry")
+                .tags("cache", name, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", this, cache -> cache.misses.get())
+                .description("Cache lookups that found no entry or an expired one")
+                .tags("cache", name, "result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", this, cache -> cache.evictions.get())
+                .description("Entries evicted because the cache was full")
+                .tag("cache", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.expirations", this, cache -> cache.expirations.get())
+                .description("Entries dropped because their time to live had passed")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, TtlCache::size)
+                .description("Entries currently cached")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.max.size", this, cache -> cache.maxSize)
+                .description("Entries the cache holds before evicting")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
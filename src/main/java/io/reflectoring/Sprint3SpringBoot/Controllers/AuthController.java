@@ -44,7 +44,7 @@ public class AuthController {
         );
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         User us = userRepository.findUserByEmail(user.getEmail());
-        return new SigninDto(us.getId(), us.getRole(),jwtUtils.generateToken(userDetails.getUsername()));
+        return new SigninDto(us.getId(), us.getRole(),jwtUtils.generateToken(userDetails.getUsername(), us.getId(), us.getRole()));
     }
     @PostMapping("/signup")
     public ResponseEntity<String> registerUser(@RequestBody User user) {
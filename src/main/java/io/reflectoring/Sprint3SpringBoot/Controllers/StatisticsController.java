@@ -2,7 +2,10 @@ package io.reflectoring.Sprint3SpringBoot.Controllers;
 
 import io.reflectoring.Sprint3SpringBoot.Dto.StatisticsDto;
 import io.reflectoring.Sprint3SpringBoot.Mapper.StatisticsMapper;
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
 import io.reflectoring.Sprint3SpringBoot.Models.Statistics;
+import io.reflectoring.Sprint3SpringBoot.Models.StatisticsRollup;
+import io.reflectoring.Sprint3SpringBoot.Services.FountainStatisticsService;
 import io.reflectoring.Sprint3SpringBoot.Services.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -19,11 +22,13 @@ public class StatisticsController {
 
     private final StatisticsService statisticsService;
     private final StatisticsMapper statisticsMapper;
+    private final FountainStatisticsService fountainStatisticsService;
 
     @Autowired
-    public StatisticsController(StatisticsService statisticsService, StatisticsMapper statisticsMapper) {
+    public StatisticsController(StatisticsService statisticsService, StatisticsMapper statisticsMapper, FountainStatisticsService fountainStatisticsService) {
         this.statisticsService = statisticsService;
         this.statisticsMapper = statisticsMapper;
+        this.fountainStatisticsService = fountainStatisticsService;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -37,9 +42,12 @@ public class StatisticsController {
     }
 
     @GetMapping("/bymonth/{month}")
-    public ResponseEntity<?> getMonthStatistics(@PathVariable int month)
+    public ResponseEntity<?> getMonthStatistics(@PathVariable int month, @RequestParam(defaultValue = "false") boolean summary)
     {
         try{
+            if (summary) {
+                return summaryResponse(statisticsService.getMonthSummary(month), "No statistics for month " + month);
+            }
             List<Statistics> statistics = statisticsService.getMonthStatistics(month);
 
             return ResponseEntity.ok(statistics);
@@ -49,15 +57,27 @@ public class StatisticsController {
     }
 
     @GetMapping("/byyear/{year}")
-    public ResponseEntity<?> getYearStatistics(@PathVariable int year)
+    public ResponseEntity<?> getYearStatistics(@PathVariable int year, @RequestParam(defaultValue = "false") boolean summary)
     {
         try{
+            if (summary) {
+                return summaryResponse(statisticsService.getYearSummary(year), "No statistics for year " + year);
+            }
             return ResponseEntity.status(HttpStatus.OK).body(statisticsService.getYearStatistics(year));
         } catch (IllegalArgumentException e){
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    @GetMapping("/fountain/{fountainId}")
+    public ResponseEntity<?> getFountainStatistics(@PathVariable int fountainId)
+    {
+        FountainStatistics statistics = fountainStatisticsService.getFountainStatistics(fountainId);
+        return statistics != null
+                ? ResponseEntity.ok(statistics)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body("No analyses for fountain " + fountainId);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getStatisticsById(@PathVariable int id)
     {
@@ -67,4 +87,10 @@ public class StatisticsController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
+
+    private ResponseEntity<?> summaryResponse(StatisticsRollup rollup, String notFoundMessage) {
+        return rollup != null
+                ? ResponseEntity.ok(rollup)
+                : ResponseEntity.status(HttpStatus.NOT_FOUND).body(notFoundMessage);
+    }
 }
@@ -1,5 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Controllers;
 
+import io.reflectoring.Sprint3SpringBoot.Dto.FavouritesPageDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.UserDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.UserFullDto;
@@ -119,13 +120,18 @@ public class UserController {
 
     /**
      * Retrieves a user's favorite fountains.
+     * Clients with large favourite lists should pass {@code idsOnly=true} and resolve the ids incrementally,
+     * or use {@link #getFavouritesPage(int, Integer, int)}.
      *
-     * @param id The unique identifier of the user.
-     * @return A ResponseEntity containing a list of {@link FountainDto}.
+     * @param id      The unique identifier of the user.
+     * @param idsOnly If true, only the favourite fountain ids are returned, without resolving them.
+     * @return A ResponseEntity containing a list of {@link FountainDto}, or of fountain ids.
      */
     @GetMapping("/favorites/{id}")
-    public ResponseEntity<?> getUserFavourites(@PathVariable int id){
+    public ResponseEntity<?> getUserFavourites(@PathVariable int id, @RequestParam(defaultValue = "false") boolean idsOnly){
         try{
+            if (idsOnly)
+                return ResponseEntity.ok(userService.getUserFavouriteIds(id));
             return ResponseEntity.ok(userService.getUserFavourites(id));
 
         } catch (UserNotFoundException | RoleNotAcepted e) {
@@ -133,6 +139,35 @@ public class UserController {
         }
     }
 
+    /**
+     * Retrieves one page of a user's favorite fountains, ordered by fountain id.
+     *
+     * @param id     The unique identifier of the user.
+     * @param cursor The {@code nextCursor} of the previous page; omitted for the first page.
+     * @param size   The maximum number of fountains in the page.
+     * @return A ResponseEntity containing a {@link FavouritesPageDto} or an error message.
+     */
+    @GetMapping("/favorites/{id}/page")
+    public ResponseEntity<?> getFavouritesPage(@PathVariable int id,
+                                               @RequestParam(required = false) Integer cursor,
+                                               @RequestParam(defaultValue = "20") int size){
+        try{
+            return ResponseEntity.ok(userService.getFavouritesPage(id, cursor, size));
+
+        } catch (UserNotFoundException | RoleNotAcepted e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (ParamException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves up to {@code i} of a client's favourite fountains: those with the lowest ids, in ascending order.
+     *
+     * @param id The unique identifier of the user.
+     * @param i  The maximum number of fountains to return.
+     * @return The fountains, or 404 if the user is not a client or {@code i} is not positive.
+     */
     @GetMapping("/favorites/{id}/{i}")
     public ResponseEntity<?> getXFavourites(@PathVariable int id, @PathVariable int i){
         try{
@@ -154,7 +189,7 @@ public class UserController {
         try{
             return ResponseEntity.ok(userService.getTesterWaterAnalysis(id));
 
-        } catch (UserNotFoundException | RoleNotAcepted e) {
+        } catch (UserNotFoundException | RoleNotAcepted | RetrofitException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
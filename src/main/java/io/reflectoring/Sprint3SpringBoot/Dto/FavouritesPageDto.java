@@ -0,0 +1,46 @@
+package io.reflectoring.Sprint3SpringBoot.Dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's favourite fountains.
+ * Pass {@code nextCursor} back as the {@code cursor} parameter to fetch the next page; it is null on the last page.
+ */
+public class FavouritesPageDto {
+    private int size;
+    private Integer nextCursor;
+    private List<FountainDto> fountains;
+
+    public FavouritesPageDto() {
+    }
+
+    public FavouritesPageDto(int size, Integer nextCursor, List<FountainDto> fountains) {
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.fountains = fountains;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Integer nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public List<FountainDto> getFountains() {
+        return fountains;
+    }
+
+    public void setFountains(List<FountainDto> fountains) {
+        this.fountains = fountains;
+    }
+}
@@ -19,6 +19,15 @@ public class StatisticsDto {
     @JsonProperty("totalAnalysis")
     private int totalAnalyses;
 
+    @JsonProperty("p50RadonLevel")
+    private Double p50;
+
+    @JsonProperty("p90RadonLevel")
+    private Double p90;
+
+    @JsonProperty("p99RadonLevel")
+    private Double p99;
+
     @JsonProperty("date")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private LocalDate date;
@@ -76,5 +85,28 @@ public class StatisticsDto {
     public void setDate(LocalDate date) {
         this.date = date;
     }
-}
 
+    public Double getP50() {
+        return p50;
+    }
+
+    public void setP50(Double p50) {
+        this.p50 = p50;
+    }
+
+    public Double getP90() {
+        return p90;
+    }
+
+    public void setP90(Double p90) {
+        this.p90 = p90;
+    }
+
+    public Double getP99() {
+        return p99;
+    }
+
+    public void setP99(Double p99) {
+        this.p99 = p99;
+    }
+}
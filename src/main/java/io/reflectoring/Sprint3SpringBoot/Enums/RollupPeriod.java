@@ -0,0 +1,17 @@
+package io.reflectoring.Sprint3SpringBoot.Enums;
+
+/**
+ * Enum representing the period covered by a statistics rollup.
+ */
+public enum RollupPeriod {
+
+    /**
+     * A calendar month.
+     */
+    Month,
+
+    /**
+     * A calendar year.
+     */
+    Year
+}
@@ -0,0 +1,44 @@
+package io.reflectoring.Sprint3SpringBoot.Events;
+
+/**
+ * Published after the per-fountain statistics view has changed, or has been marked stale and will change on the next read.
+ * Listeners that memoise results computed from the view use it to drop them; unlike {@link WaterAnalysisSavedEvent},
+ * it is only published once the view has been written.
+ */
+public class FountainStatisticsChangedEvent {
+
+    private final Integer fountainId;
+
+    private FountainStatisticsChangedEvent(Integer fountainId) {
+        this.fountainId = fountainId;
+    }
+
+    /**
+     * @param fountainId The fountain whose row changed.
+     * @return an event for a single fountain.
+     */
+    public static FountainStatisticsChangedEvent of(int fountainId) {
+        return new FountainStatisticsChangedEvent(fountainId);
+    }
+
+    /**
+     * @return an event for changes that may affect any fountain.
+     */
+    public static FountainStatisticsChangedEvent all() {
+        return new FountainStatisticsChangedEvent(null);
+    }
+
+    /**
+     * @return true if any fountain may have changed.
+     */
+    public boolean isAll() {
+        return fountainId == null;
+    }
+
+    /**
+     * @return the fountain whose row changed, or null if any fountain may have changed.
+     */
+    public Integer getFountainId() {
+        return fountainId;
+    }
+}
@@ -0,0 +1,33 @@
+package io.reflectoring.Sprint3SpringBoot.Events;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+
+/**
+ * Published after a water analysis has been created or updated through this backend.
+ * Listeners use it to keep locally maintained aggregates in sync without re-reading the upstream API.
+ */
+public class WaterAnalysisSavedEvent {
+
+    private final WaterAnalysisDto waterAnalysis;
+
+    private final boolean created;
+
+    public WaterAnalysisSavedEvent(WaterAnalysisDto waterAnalysis, boolean created) {
+        this.waterAnalysis = waterAnalysis;
+        this.created = created;
+    }
+
+    /**
+     * @return the water analysis as returned by the upstream API.
+     */
+    public WaterAnalysisDto getWaterAnalysis() {
+        return waterAnalysis;
+    }
+
+    /**
+     * @return true if the analysis was created, false if an existing one was updated.
+     */
+    public boolean isCreated() {
+        return created;
+    }
+}
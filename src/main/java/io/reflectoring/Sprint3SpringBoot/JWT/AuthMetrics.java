@@ -0,0 +1,97 @@
+package io.reflectoring.Sprint3SpringBoot.JWT;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the per-request authentication path, replacing the console output of {@link JwtUtil} and {@link AuthTokenFilter}.
+ *
+ * <p>Registered metrics:</p>
+ * <ul>
+ *   <li>{@code auth.token.parse}: reading the bearer token and looking it up in the verified-token cache.</li>
+ *   <li>{@code auth.token.verify}: decoding and checking the signature of tokens not found in the cache.</li>
+ *   <li>{@code auth.user.load}: building the principal, including the user lookup unless the token carries it.</li>
+ *   <li>{@code auth.token.rejected}: tokens that did not authenticate the request, tagged with the {@link Rejection} reason.</li>
+ * </ul>
+ */
+@Component
+public class AuthMetrics {
+
+    /**
+     * Why a bearer token did not authenticate the request.
+     */
+    public enum Rejection {
+        EXPIRED,
+        MALFORMED,
+        BAD_SIGNATURE,
+        UNSUPPORTED,
+        EMPTY,
+        USER_NOT_FOUND,
+        ERROR
+    }
+
+    private final Timer parseTimer;
+    private final Timer verifyTimer;
+    private final Timer userLoadTimer;
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+
+    @Autowired
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.parseTimer = Timer.builder("auth.token.parse")
+                .description("Bearer token extraction and verified-token cache lookup")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("auth.token.verify")
+                .description("Token decoding and signature verification on cache misses")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.userLoadTimer = Timer.builder("auth.user.load")
+                .description("Principal construction, including the user details lookup")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        for (Rejection rejection : Rejection.values()) {
+            rejections.put(rejection, Counter.builder("auth.token.rejected")
+                    .description("Bearer tokens that did not authenticate the request")
+                    .tag("reason", rejection.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @param startNanos The {@link System#nanoTime()} at which token parsing started.
+     */
+    public void recordParse(long startNanos) {
+        parseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param startNanos The {@link System#nanoTime()} at which signature verification started.
+     */
+    public void recordVerify(long startNanos) {
+        verifyTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param startNanos The {@link System#nanoTime()} at which the user details load started.
+     */
+    public void recordUserLoad(long startNanos) {
+        userLoadTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a token that did not authenticate the request.
+     *
+     * @param rejection The reason.
+     */
+    public void rejected(Rejection rejection) {
+        rejections.get(rejection).increment();
+    }
+}
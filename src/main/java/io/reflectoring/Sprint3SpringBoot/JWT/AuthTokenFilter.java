@@ -1,13 +1,18 @@
 package io.reflectoring.Sprint3SpringBoot.JWT;
 
+import io.jsonwebtoken.Claims;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import io.reflectoring.Sprint3SpringBoot.JWT.AuthMetrics.Rejection;
 import io.reflectoring.Sprint3SpringBoot.Services.CustomUserDetailsService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.authentication.*;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -24,6 +29,14 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private AuthMetrics authMetrics;
+
+    // When enabled, the principal of tokens carrying the user id and role is built from the claims,
+    // without checking the user still exists
+    @Value("${jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -32,9 +45,15 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateJwtToken(jwt)) {
-                String email = jwtUtil.getEmailFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            Claims claims = jwt != null ? jwtUtil.getValidatedClaims(jwt) : null;
+            if (claims != null) {
+                long start = System.nanoTime();
+                UserDetails userDetails;
+                try {
+                    userDetails = loadUserDetails(claims);
+                } finally {
+                    authMetrics.recordUserLoad(start);
+                }
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails,
@@ -44,11 +63,43 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
+        } catch (UsernameNotFoundException e) {
+            authMetrics.rejected(Rejection.USER_NOT_FOUND);
+            logger.debug("Rejected JWT token (" + Rejection.USER_NOT_FOUND + "): " + e.getMessage());
         } catch (Exception e) {
-            System.out.println("Cannot set user authentication: " + e);
+            authMetrics.rejected(Rejection.ERROR);
+            logger.warn("Cannot set user authentication", e);
         }
         filterChain.doFilter(request, response);
     }
+    private UserDetails loadUserDetails(Claims claims) {
+        String email = claims.getSubject();
+        if (statelessPrincipal) {
+            AuthenticatedUser principal = principalOf(email, claims);
+            if (principal != null) {
+                return principal;
+            }
+        }
+        return userDetailsService.loadUserByUsernameCached(email);
+    }
+
+    /**
+     * Builds the principal from the token's claims.
+     *
+     * @return the principal, or null if the token does not carry a user id and a known role.
+     */
+    private static AuthenticatedUser principalOf(String email, Claims claims) {
+        Object userId = claims.get(JwtUtil.USER_ID_CLAIM);
+        Object role = claims.get(JwtUtil.ROLE_CLAIM);
+        if (!(userId instanceof Number) || !(role instanceof String)) {
+            return null;
+        }
+        try {
+            return new AuthenticatedUser(email, "", ((Number) userId).intValue(), Role.valueOf((String) role));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
         if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
@@ -0,0 +1,41 @@
+package io.reflectoring.Sprint3SpringBoot.JWT;
+
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+/**
+ * The principal of an authenticated request: the user's email together with their id and {@link Role}.
+ * The role is granted as the authority {@code ROLE_<role>}, e.g. {@code ROLE_Client}, so it can be checked
+ * with {@code hasRole}. It is built the same way from the database and from a token's claims.
+ */
+public class AuthenticatedUser extends User {
+
+    private final int userId;
+
+    private final Role role;
+
+    /**
+     * @param email    The user's email, used as the username.
+     * @param password The password hash, or an empty string when built from a token.
+     * @param userId   The unique identifier of the user.
+     * @param role     The user's role; a user without one is granted no authority.
+     */
+    public AuthenticatedUser(String email, String password, int userId, Role role) {
+        super(email, password, role != null
+                ? Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()))
+                : Collections.emptyList());
+        this.userId = userId;
+        this.role = role;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
@@ -3,29 +3,59 @@ package io.reflectoring.Sprint3SpringBoot.JWT;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import io.reflectoring.Sprint3SpringBoot.Cache.TtlCache;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import io.reflectoring.Sprint3SpringBoot.JWT.AuthMetrics.Rejection;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
 public class JwtUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
+
+    public static final String USER_ID_CLAIM = "uid";
+
+    public static final String ROLE_CLAIM = "role";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationMs;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Autowired
+    private AuthMetrics authMetrics;
+
     private SecretKey key;
 
+    private JwtParser parser;
+
+    // Verified tokens keyed by the SHA-256 digest of the token, each expiring at the token's exp
+    private TtlCache<String, Claims> verifiedTokens;
+
     // Initializes the key after the class is instantiated and the jwtSecret is injected,
     // preventing the repeated creation of the key and enhancing performance
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokens = new TtlCache<>(cacheMaxSize, Duration.ofMillis(jwtExpirationMs));
     }
 
     // Generate JWT token
@@ -37,30 +67,77 @@ public class JwtUtil {
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
+    // Generate JWT token carrying the user id and role, so the principal can be rebuilt without a database lookup
+    public String generateToken(String email, int userId, Role role) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
+                .claim(ROLE_CLAIM, role != null ? role.name() : null)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+    // Parse and verify JWT token once; tokens seen before are served from the cache until they expire
+    public Claims parseClaims(String token) {
+        long start = System.nanoTime();
+        String digest = digest(token);
+        Claims cached = verifiedTokens.get(digest);
+        authMetrics.recordParse(start);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims;
+        start = System.nanoTime();
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } finally {
+            authMetrics.recordVerify(start);
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            verifiedTokens.put(digest, claims, Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()));
+        }
+        return claims;
+    }
     // Get username from JWT token
     public String getEmailFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseClaims(token).getSubject();
     }
     // Validate JWT token
     public boolean validateJwtToken(String token) {
+        return getValidatedClaims(token) != null;
+    }
+    // Validate JWT token and return its claims, or null if it is not valid; rejected tokens are counted by reason
+    public Claims getValidatedClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return parseClaims(token);
         } catch (SecurityException e) {
-            System.out.println("Invalid JWT signature: " + e.getMessage());
+            reject(Rejection.BAD_SIGNATURE, e);
         } catch (MalformedJwtException e) {
-            System.out.println("Invalid JWT token: " + e.getMessage());
+            reject(Rejection.MALFORMED, e);
         } catch (ExpiredJwtException e) {
-            System.out.println("JWT token is expired: " + e.getMessage());
+            reject(Rejection.EXPIRED, e);
         } catch (UnsupportedJwtException e) {
-            System.out.println("JWT token is unsupported: " + e.getMessage());
+            reject(Rejection.UNSUPPORTED, e);
         } catch (IllegalArgumentException e) {
-            System.out.println("JWT claims string is empty: " + e.getMessage());
+            reject(Rejection.EMPTY, e);
+        }
+        return null;
+    }
+
+    private void reject(Rejection rejection, RuntimeException e) {
+        authMetrics.rejected(rejection);
+        logger.debug("Rejected JWT token ({}): {}", rejection, e.getMessage());
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return false;
     }
 }
\ No newline at end of file
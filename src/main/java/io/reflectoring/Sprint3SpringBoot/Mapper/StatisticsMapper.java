@@ -14,7 +14,11 @@ public class StatisticsMapper {
     public StatisticsMapper() {}
 
     public StatisticsDto StatisticstoDto(Statistics statistics) {
-        return new StatisticsDto(statistics.averageRadonLevel, statistics.maxRadonLevel, statistics.minRadonLevel, statistics.totalAnalysis, statistics.date);
+        StatisticsDto dto = new StatisticsDto(statistics.averageRadonLevel, statistics.maxRadonLevel, statistics.minRadonLevel, statistics.totalAnalysis, statistics.date);
+        dto.setP50(statistics.p50RadonLevel);
+        dto.setP90(statistics.p90RadonLevel);
+        dto.setP99(statistics.p99RadonLevel);
+        return dto;
     }
 
     public List<StatisticsDto> ListtoDto(List<Statistics> statistics) {
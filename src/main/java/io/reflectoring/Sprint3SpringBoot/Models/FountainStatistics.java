@@ -0,0 +1,134 @@
+package io.reflectoring.Sprint3SpringBoot.Models;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Config.LocalDateDeserializer;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Running radon aggregate of every analysis of one fountain, kept up to date as analyses are saved.
+ * The last reading is the one with the latest date; ties go to the most recent analysis.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "fountain_statistics")
+public class FountainStatistics {
+
+    @Id
+    public int fountainId;
+
+    public int totalAnalysis;
+    public double radonSum;
+    public double minRadonLevel;
+    public double maxRadonLevel;
+    public int drinkableAnalysis;
+
+    public double lastRadonLevel;
+    public int lastAnalysisId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @JsonDeserialize(using = LocalDateDeserializer.class)
+    public LocalDate lastAnalysisDate;
+
+    public FountainStatistics(int fountainId) {
+        this.fountainId = fountainId;
+        this.minRadonLevel = Double.POSITIVE_INFINITY;
+        this.maxRadonLevel = Double.NEGATIVE_INFINITY;
+    }
+
+    public FountainStatistics() {
+
+    }
+
+    /**
+     * Adds one analysis to the aggregate.
+     *
+     * @param analysisId The analysis id.
+     * @param date       The analysis date, may be null.
+     * @param radon      The radon concentration.
+     * @param drinkable  Whether the reading is within the drinkable limit.
+     */
+    public void add(int analysisId, LocalDate date, double radon, boolean drinkable) {
+        totalAnalysis++;
+        radonSum += radon;
+        if (drinkable) {
+            drinkableAnalysis++;
+        }
+        if (totalAnalysis == 1) {
+            resetExtremes();
+        }
+        offer(analysisId, date, radon);
+    }
+
+    /**
+     * Takes one analysis back out of the counts and the sum. The minimum, maximum and last reading cannot be
+     * taken back, so the caller recomputes them when this returns true.
+     *
+     * @param analysisId The analysis id.
+     * @param radon      The radon concentration the analysis was added with.
+     * @param drinkable  Whether that reading was within the drinkable limit.
+     * @return true if the reading may have been the minimum, the maximum or the last one.
+     */
+    public boolean remove(int analysisId, double radon, boolean drinkable) {
+        totalAnalysis--;
+        radonSum -= radon;
+        if (drinkable) {
+            drinkableAnalysis--;
+        }
+        return radon <= minRadonLevel || radon >= maxRadonLevel || analysisId == lastAnalysisId;
+    }
+
+    /**
+     * Clears the minimum, maximum and last reading before they are recomputed with {@link #offer}.
+     */
+    public void resetExtremes() {
+        minRadonLevel = Double.POSITIVE_INFINITY;
+        maxRadonLevel = Double.NEGATIVE_INFINITY;
+        lastRadonLevel = 0.0;
+        lastAnalysisId = Integer.MIN_VALUE;
+        lastAnalysisDate = null;
+    }
+
+    /**
+     * Considers a reading for the minimum, maximum and last reading without counting it.
+     *
+     * @param analysisId The analysis id.
+     * @param date       The analysis date, may be null.
+     * @param radon      The radon concentration.
+     */
+    public void offer(int analysisId, LocalDate date, double radon) {
+        minRadonLevel = Math.min(minRadonLevel, radon);
+        maxRadonLevel = Math.max(maxRadonLevel, radon);
+
+        boolean later = lastAnalysisDate == null
+                ? date != null || analysisId > lastAnalysisId
+                : date != null && (date.isAfter(lastAnalysisDate) || (date.isEqual(lastAnalysisDate) && analysisId > lastAnalysisId));
+        if (later) {
+            lastRadonLevel = radon;
+            lastAnalysisId = analysisId;
+            lastAnalysisDate = date;
+        }
+    }
+
+    public double getAverageRadonLevel() {
+        return totalAnalysis == 0 ? 0.0 : radonSum / totalAnalysis;
+    }
+
+    /**
+     * @return the share of drinkable analyses, from 0 to 100.
+     */
+    public double getDrinkablePercentage() {
+        return totalAnalysis == 0 ? 0.0 : drinkableAnalysis * 100.0 / totalAnalysis;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return totalAnalysis == 0;
+    }
+}
@@ -1,6 +1,7 @@
 package io.reflectoring.Sprint3SpringBoot.Models;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Config.LocalDateDeserializer;
 import jakarta.persistence.*;
@@ -14,7 +15,7 @@ import java.time.LocalDate;
 @Entity
 @Getter
 @Setter
-@Table(name = "[statistics]")
+@Table(name = "[statistics]", indexes = @Index(name = "ix_statistics_date", columnList = "date"))
 public class Statistics {
 
     @Id
@@ -26,6 +27,17 @@ public class Statistics {
     public double minRadonLevel;
     public int totalAnalysis;
 
+    // Radon percentiles from the quantile sketch; null for rows saved before sketches were kept
+    public Double p50RadonLevel;
+    public Double p90RadonLevel;
+    public Double p99RadonLevel;
+
+    // Serialised RadonSketch of the readings, merged to build the month and year percentiles
+    @JsonIgnore
+    @Lob
+    @Column(name = "radon_sketch")
+    public byte[] radonSketch;
+
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     @JsonDeserialize(using = LocalDateDeserializer.class)
     public LocalDate date;
@@ -0,0 +1,59 @@
+package io.reflectoring.Sprint3SpringBoot.Models;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.reflectoring.Sprint3SpringBoot.Enums.RollupPeriod;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Config.LocalDateDeserializer;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated radon statistics for a month or a year, in the same shape as {@link Statistics}.
+ * {@code date} is the first day of the period.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "statistics_rollup", uniqueConstraints = @UniqueConstraint(name = "uq_statistics_rollup_period", columnNames = {"period", "date"}))
+public class StatisticsRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    public int id;
+
+    @Enumerated(EnumType.STRING)
+    public RollupPeriod period;
+
+    public double averageRadonLevel;
+    public double maxRadonLevel;
+    public double minRadonLevel;
+    public int totalAnalysis;
+
+    // Radon percentiles from the quantile sketch; null for rows saved before sketches were kept
+    public Double p50RadonLevel;
+    public Double p90RadonLevel;
+    public Double p99RadonLevel;
+
+    // Serialised RadonSketch of the readings, merged to build the month and year percentiles
+    @JsonIgnore
+    @Lob
+    @Column(name = "radon_sketch")
+    public byte[] radonSketch;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
+    @JsonDeserialize(using = LocalDateDeserializer.class)
+    public LocalDate date;
+
+    public StatisticsRollup(RollupPeriod period, LocalDate date) {
+        this.period = period;
+        this.date = date;
+    }
+
+    public StatisticsRollup() {
+
+    }
+}
@@ -7,7 +7,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a user entity in the system.
@@ -61,12 +63,17 @@ public class User {
     private Role role;
 
     /**
-     * List of favorite fountains (not persisted in the database).
+     * Set of favorite fountain ids.
+     * Each favourite is one row of {@code user_favourites}, unique per user and fountain, so adding or removing
+     * one touches a single row instead of rewriting the collection; see {@code UserRepository#addFavourite}.
+     * Databases holding duplicate rows from the former list mapping need {@code db/dedupe-user-favourites.sql}
+     * before the constraint can be added.
      */
     @ElementCollection
-    @CollectionTable(name = "user_favourites", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "fountain_id")
-    private List<Integer> favourites;
+    @CollectionTable(name = "user_favourites", joinColumns = @JoinColumn(name = "user_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_user_favourites", columnNames = {"user_id", "fountain_id"}))
+    @Column(name = "fountain_id", nullable = false)
+    private Set<Integer> favourites;
 
     /**
      * List of water analyses associated with the user (not persisted in the database).
@@ -89,7 +96,7 @@ public class User {
         this.email = email;
         this.password = password;
         this.role = role;
-        this.favourites = new ArrayList<>();
+        this.favourites = new HashSet<>();
         this.waterAnalysis = new ArrayList<>();
     }
 
@@ -98,7 +105,7 @@ public class User {
      */
     public User() {
         this.role = Role.Client;
-        this.favourites = new ArrayList<>();
+        this.favourites = new HashSet<>();
         this.waterAnalysis = new ArrayList<>();
     }
 
@@ -192,11 +199,11 @@ public class User {
         this.role = role;
     }
 
-    public List<Integer> getFavourites() {
+    public Set<Integer> getFavourites() {
         return favourites;
     }
 
-    public void setFavourites(List<Integer> favourites) {
+    public void setFavourites(Set<Integer> favourites) {
         this.favourites = favourites;
     }
 
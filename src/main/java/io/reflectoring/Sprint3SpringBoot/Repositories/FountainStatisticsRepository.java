@@ -0,0 +1,16 @@
+package io.reflectoring.Sprint3SpringBoot.Repositories;
+
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface FountainStatisticsRepository extends JpaRepository<FountainStatistics, Integer> {
+
+    /**
+     * @return the id of every fountain that has a row.
+     */
+    @Query("SELECT f.fountainId FROM FountainStatistics f")
+    List<Integer> findAllFountainIds();
+}
@@ -9,4 +9,13 @@ import java.util.List;
 
 public interface StatisticsRepository extends JpaRepository<Statistics, Integer> {
     public Statistics findById(int id);
+
+    /**
+     * Retrieves the statistics whose date falls in the given range, filtered by the database.
+     *
+     * @param start The first day of the range, inclusive.
+     * @param end   The last day of the range, inclusive.
+     * @return The matching statistics ordered by date.
+     */
+    List<Statistics> findByDateBetweenOrderByDateAsc(LocalDate start, LocalDate end);
 }
@@ -0,0 +1,14 @@
+package io.reflectoring.Sprint3SpringBoot.Repositories;
+
+import io.reflectoring.Sprint3SpringBoot.Enums.RollupPeriod;
+import io.reflectoring.Sprint3SpringBoot.Models.StatisticsRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface StatisticsRollupRepository extends JpaRepository<StatisticsRollup, Integer> {
+    StatisticsRollup findByPeriodAndDate(RollupPeriod period, LocalDate date);
+
+    List<StatisticsRollup> findByPeriodAndDateBetween(RollupPeriod period, LocalDate start, LocalDate end);
+}
@@ -1,9 +1,71 @@
 package io.reflectoring.Sprint3SpringBoot.Repositories;
 
 import io.reflectoring.Sprint3SpringBoot.Models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     User findUserByEmail(String email);
     boolean existsByEmail(String email);
+
+    /**
+     * Retrieves a user's favourite fountain ids without loading the user's collections.
+     *
+     * @param userId The user id.
+     * @return The favourite fountain ids in ascending order.
+     */
+    @Query("SELECT f FROM User u JOIN u.favourites f WHERE u.id = :userId ORDER BY f")
+    List<Integer> findFavouriteIds(@Param("userId") int userId);
+
+    /**
+     * Retrieves one page of a user's favourite fountain ids, filtered and limited by the database.
+     *
+     * @param userId   The user id.
+     * @param after    Only ids greater than this one are returned.
+     * @param pageable The page limit; the offset should be zero, since the cursor does the skipping.
+     * @return The favourite fountain ids greater than {@code after} in ascending order.
+     */
+    @Query("SELECT f FROM User u JOIN u.favourites f WHERE u.id = :userId AND f > :after ORDER BY f")
+    List<Integer> findFavouriteIdsAfter(@Param("userId") int userId, @Param("after") int after, Pageable pageable);
+
+    /**
+     * Checks a single favourite through the {@code (user_id, fountain_id)} unique index.
+     *
+     * @param userId     The user id.
+     * @param fountainId The fountain id.
+     * @return true if the fountain is one of the user's favourites.
+     */
+    @Query("SELECT COUNT(f) > 0 FROM User u JOIN u.favourites f WHERE u.id = :userId AND f = :fountainId")
+    boolean isFavourite(@Param("userId") int userId, @Param("fountainId") int fountainId);
+
+    /**
+     * Inserts a single favourite row.
+     *
+     * @param userId     The user id.
+     * @param fountainId The fountain id.
+     * @return The number of rows inserted.
+     * @throws org.springframework.dao.DataIntegrityViolationException If the fountain already is a favourite.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_favourites (user_id, fountain_id) VALUES (:userId, :fountainId)", nativeQuery = true)
+    int addFavourite(@Param("userId") int userId, @Param("fountainId") int fountainId);
+
+    /**
+     * Deletes a single favourite row.
+     *
+     * @param userId     The user id.
+     * @param fountainId The fountain id.
+     * @return The number of rows deleted, 0 if the fountain was not a favourite.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM user_favourites WHERE user_id = :userId AND fountain_id = :fountainId", nativeQuery = true)
+    int removeFavourite(@Param("userId") int userId, @Param("fountainId") int fountainId);
 }
@@ -5,27 +5,78 @@ import io.reflectoring.Sprint3SpringBoot.Retrofit.Controllers.TourController;
 */
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.*;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Metrics.UpstreamMetricsInterceptor;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience.UpstreamResilienceInterceptor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 /*
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.TourService;
 */
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Configuration class for setting up Retrofit clients with Jackson converter.
  * This class provides Retrofit instances for different API services.
+ * All clients share a single {@link OkHttpClient}, so they use one connection pool and one dispatcher.
+ * When {@code spring.threads.virtual.enabled} is true, Tomcat handles requests on virtual threads and the
+ * dispatcher runs enqueued calls on virtual threads as well.
  */
 @Configuration
 public class RetrofitConfig {
 
-    private static final String BASE_URL_DEVICE = "http://localhost:5269/api/";
-    private static final String BASE_URL_CONTINUOUSUSEDEVICE = "http://localhost:5269/api/";
-    private static final String BASE_URL_FOUNTAIN = "http://localhost:5269/api/";
-    private static final String BASE_URL_WATERANALYSIS = "http://localhost:5269/api/";
+    // Every upstream resource is served by the same API; overridden by the load-test harness to point at its stub
+    @Value("${upstream.base-url:http://localhost:5269/api/}")
+    private String baseUrl;
+
+    /**
+     * Creates the HTTP client shared by every Retrofit client.
+     * Pool size, keep-alive, timeouts and dispatcher limits come from the {@code upstream.http.*} properties.
+     * The dispatcher limits still cap in-flight upstream calls in virtual-thread mode.
+     * Every call goes through the {@link UpstreamResilienceInterceptor} circuit breaker and bulkhead.
+     * The {@link UpstreamMetricsInterceptor} sits outside them, so rejected calls are recorded as well.
+     *
+     * @return the shared {@link OkHttpClient}.
+     */
+    @Bean
+    public OkHttpClient upstreamHttpClient(UpstreamMetricsInterceptor upstreamMetricsInterceptor,
+                                           UpstreamResilienceInterceptor upstreamResilienceInterceptor,
+                                           @Value("${upstream.http.max-idle-connections:20}") int maxIdleConnections,
+                                           @Value("${upstream.http.keep-alive-ms:300000}") long keepAliveMs,
+                                           @Value("${upstream.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                           @Value("${upstream.http.read-timeout-ms:5000}") long readTimeoutMs,
+                                           @Value("${upstream.http.write-timeout-ms:5000}") long writeTimeoutMs,
+                                           @Value("${upstream.http.call-timeout-ms:10000}") long callTimeoutMs,
+                                           @Value("${upstream.http.max-requests:128}") int maxRequests,
+                                           @Value("${upstream.http.max-requests-per-host:64}") int maxRequestsPerHost,
+                                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Dispatcher dispatcher = virtualThreads
+                ? new Dispatcher(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("okhttp-", 0).factory()))
+                : new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
 
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .writeTimeout(Duration.ofMillis(writeTimeoutMs))
+                .callTimeout(Duration.ofMillis(callTimeoutMs))
+                .retryOnConnectionFailure(true)
+                .addInterceptor(upstreamMetricsInterceptor)
+                .addInterceptor(upstreamResilienceInterceptor)
+                .build();
+    }
 
     /**
      * Creates and configures a Retrofit client for interacting with the device API.
@@ -33,9 +84,10 @@ public class RetrofitConfig {
      * @return an instance of {@link IDeviceService} for API calls.
      */
     @Bean
-    public IDeviceService deviceApiClient(ObjectMapper objectMapper) {
+    public IDeviceService deviceApiClient(ObjectMapper objectMapper, OkHttpClient upstreamHttpClient) {
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL_DEVICE)
+                .baseUrl(baseUrl)
+                .client(upstreamHttpClient)
                 .addConverterFactory(JacksonConverterFactory.create(objectMapper))
                 .build();
         return retrofit.create(IDeviceService.class);
@@ -47,9 +99,10 @@ public class RetrofitConfig {
      * @return an instance of {@link IContinuousUseDeviceService} for API calls.
      */
     @Bean
-    public IContinuousUseDeviceService continuousUseDeviceApiClient(ObjectMapper objectMapper) {
+    public IContinuousUseDeviceService continuousUseDeviceApiClient(ObjectMapper objectMapper, OkHttpClient upstreamHttpClient) {
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL_CONTINUOUSUSEDEVICE)
+                .baseUrl(baseUrl)
+                .client(upstreamHttpClient)
                 .addConverterFactory(JacksonConverterFactory.create(objectMapper))
                 .build();
         return retrofit.create(IContinuousUseDeviceService.class);
@@ -61,9 +114,10 @@ public class RetrofitConfig {
      * @return an instance of {@link IFountainService} for API calls.
      */
     @Bean
-    public IFountainService fountainApiClient() {
+    public IFountainService fountainApiClient(OkHttpClient upstreamHttpClient) {
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL_FOUNTAIN)
+                .baseUrl(baseUrl)
+                .client(upstreamHttpClient)
                 .addConverterFactory(JacksonConverterFactory.create())
                 .build();
         return retrofit.create(IFountainService.class);
@@ -75,9 +129,10 @@ public class RetrofitConfig {
      * @return an instance of {@link IWaterAnalysisService} for API calls.
      */
     @Bean
-    public IWaterAnalysisService waterAnalysisApiClient(ObjectMapper objectMapper) {
+    public IWaterAnalysisService waterAnalysisApiClient(ObjectMapper objectMapper, OkHttpClient upstreamHttpClient) {
         Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL_WATERANALYSIS)
+                .baseUrl(baseUrl)
+                .client(upstreamHttpClient)
                 .addConverterFactory(JacksonConverterFactory.create(objectMapper))
                 .build();
         return retrofit.create(IWaterAnalysisService.class);
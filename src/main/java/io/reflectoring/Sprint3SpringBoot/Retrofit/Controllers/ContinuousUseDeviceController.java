@@ -1,7 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Controllers;
 
 import io.reflectoring.Sprint3SpringBoot.Dto.ContinuousUseDeviceDto;
-import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.ContinuousUseDeviceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -11,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/continuousUseDevice")
@@ -24,60 +24,46 @@ public class ContinuousUseDeviceController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ContinuousUseDeviceDto>> getAllContinuousUseDevices() {
-        try {
-            List<ContinuousUseDeviceDto> devices = continuousUseDeviceService.getAllContinuousUseDevices();
-            return devices.isEmpty() ? new ResponseEntity<>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(devices, HttpStatus.OK);
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.emptyList());
-        }
+    public CompletableFuture<ResponseEntity<List<ContinuousUseDeviceDto>>> getAllContinuousUseDevices() {
+        return continuousUseDeviceService.getAllContinuousUseDevicesAsync()
+                .thenApply(devices -> devices.isEmpty() ? new ResponseEntity<List<ContinuousUseDeviceDto>>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(devices, HttpStatus.OK))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Collections.emptyList()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ContinuousUseDeviceDto> getContinuousUseDeviceById(@PathVariable("id") int deviceId) {
+    public CompletableFuture<ResponseEntity<ContinuousUseDeviceDto>> getContinuousUseDeviceById(@PathVariable("id") int deviceId) {
         if (deviceId <= 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
-        try {
-            ContinuousUseDeviceDto continuousUseDeviceDto = continuousUseDeviceService.getContinuousUseDeviceById(deviceId);
-            return continuousUseDeviceDto != null ? ResponseEntity.ok(continuousUseDeviceDto) : ResponseEntity.notFound().build();
-        }catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return continuousUseDeviceService.getContinuousUseDeviceByIdAsync(deviceId)
+                .thenApply(continuousUseDeviceDto -> continuousUseDeviceDto != null ? ResponseEntity.ok(continuousUseDeviceDto) : ResponseEntity.notFound().<ContinuousUseDeviceDto>build())
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null));
     }
 
     @PostMapping
-    public ResponseEntity<ContinuousUseDeviceDto> createContinuousUseDevice(@RequestBody ContinuousUseDeviceDto continuousUseDeviceDto) {
-        try{
-            ContinuousUseDeviceDto continuousUseDeviceDtoCreated = continuousUseDeviceService.createContinuousUseDevice(continuousUseDeviceDto);
-            return ResponseEntity.status(HttpStatus.CREATED).body(continuousUseDeviceDtoCreated);
-        }catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
-        }
+    public CompletableFuture<ResponseEntity<ContinuousUseDeviceDto>> createContinuousUseDevice(@RequestBody ContinuousUseDeviceDto continuousUseDeviceDto) {
+        return continuousUseDeviceService.createContinuousUseDeviceAsync(continuousUseDeviceDto)
+                .thenApply(continuousUseDeviceDtoCreated -> ResponseEntity.status(HttpStatus.CREATED).body(continuousUseDeviceDtoCreated))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<ContinuousUseDeviceDto> updateContinuousUseDevice(@RequestBody ContinuousUseDeviceDto continuousUseDeviceDto, @PathVariable("id") int id) {
+    public CompletableFuture<ResponseEntity<ContinuousUseDeviceDto>> updateContinuousUseDevice(@RequestBody ContinuousUseDeviceDto continuousUseDeviceDto, @PathVariable("id") int id) {
         if (id <= 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
-        try {
-            ContinuousUseDeviceDto continuousUseDeviceDtoUpdated = continuousUseDeviceService.updateContinuousUseDevice(id, continuousUseDeviceDto);
-            return ResponseEntity.ok(continuousUseDeviceDtoUpdated);
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return continuousUseDeviceService.updateContinuousUseDeviceAsync(id, continuousUseDeviceDto)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null));
     }
 
     @PutMapping("/{id}/frequency")
-    public ResponseEntity<ContinuousUseDeviceDto> updateContinuousUseDeviceFrequency( @PathVariable("id") int id, @RequestBody int frequency) {
+    public CompletableFuture<ResponseEntity<ContinuousUseDeviceDto>> updateContinuousUseDeviceFrequency( @PathVariable("id") int id, @RequestBody int frequency) {
         if (id <= 0 || frequency < 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }try{
-            ContinuousUseDeviceDto updateFrequency = continuousUseDeviceService.updateContinuousUseDeviceFrequency(id, frequency);
-            return ResponseEntity.ok(updateFrequency);
-        }catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return continuousUseDeviceService.updateContinuousUseDeviceFrequencyAsync(id, frequency)
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null));
     }
 }
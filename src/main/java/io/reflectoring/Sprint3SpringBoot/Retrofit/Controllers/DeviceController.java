@@ -1,7 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Controllers;
 
 import io.reflectoring.Sprint3SpringBoot.Dto.DeviceDto;
-import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.DeviceService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -9,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/devices")
@@ -23,46 +23,36 @@ public class DeviceController {
     }
 
     @GetMapping
-    public ResponseEntity<List<DeviceDto>> getAllDevices() {
-        try{
-            List<DeviceDto> devices = deviceService.getAllDevices();
-            return devices.isEmpty() ? new ResponseEntity<>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(devices, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public CompletableFuture<ResponseEntity<List<DeviceDto>>> getAllDevices() {
+        return deviceService.getAllDevicesAsync()
+                .thenApply(devices -> devices.isEmpty() ? new ResponseEntity<List<DeviceDto>>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(devices, HttpStatus.OK))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<DeviceDto> getDeviceById(@PathVariable("id") Integer id) {
+    public CompletableFuture<ResponseEntity<DeviceDto>> getDeviceById(@PathVariable("id") Integer id) {
         if (id <= 0){
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }try{
-            DeviceDto device = deviceService.getDeviceById(id);
-            return new ResponseEntity<>(device, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
+        return deviceService.getDeviceByIdAsync(id)
+                .thenApply(device -> new ResponseEntity<>(device, HttpStatus.OK))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @PostMapping
-    public ResponseEntity<DeviceDto> createDevice(@RequestBody DeviceDto device) {
-        try{
-            DeviceDto deviceCreated = deviceService.createDevice(device);
-            return new ResponseEntity<>(deviceCreated, HttpStatus.CREATED);
-        }catch (RetrofitException e){
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public CompletableFuture<ResponseEntity<DeviceDto>> createDevice(@RequestBody DeviceDto device) {
+        return deviceService.createDeviceAsync(device)
+                .thenApply(deviceCreated -> new ResponseEntity<>(deviceCreated, HttpStatus.CREATED))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<DeviceDto> updateDevice(@RequestBody DeviceDto device, @PathVariable int id) {
+    public CompletableFuture<ResponseEntity<DeviceDto>> updateDevice(@RequestBody DeviceDto device, @PathVariable int id) {
         if(id <= 0){
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }try{
-            DeviceDto updatedDevice = deviceService.updateDevice(id, device);
-            return new ResponseEntity<>(updatedDevice, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
+        return deviceService.updateDeviceAsync(id, device)
+                .thenApply(updatedDevice -> new ResponseEntity<>(updatedDevice, HttpStatus.OK))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 }
@@ -1,7 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Controllers;
 
 import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
-import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -10,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/fountains")
@@ -24,75 +24,57 @@ public class FountainController {
     }
 
     @GetMapping
-    public ResponseEntity<List<FountainDto>> getAllFountains() {
-        try {
-            List<FountainDto> fountains = fountainService.getAllFountains();
-            return fountains.isEmpty()
-                    ? ResponseEntity.noContent().build()
-                    : ResponseEntity.ok()
-                    .body(fountains);
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.emptyList());
-        }
+    public CompletableFuture<ResponseEntity<List<FountainDto>>> getAllFountains() {
+        return fountainService.getAllFountainsAsync()
+                .thenApply(fountains -> fountains.isEmpty()
+                        ? ResponseEntity.noContent().<List<FountainDto>>build()
+                        : ResponseEntity.ok()
+                        .body(fountains))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Collections.emptyList()));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FountainDto> getFountainById(@PathVariable("id") int fountainId) {
+    public CompletableFuture<ResponseEntity<FountainDto>> getFountainById(@PathVariable("id") int fountainId) {
         if (fountainId <= 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
-        try {
-            FountainDto fountain = fountainService.getFountainById(fountainId);
-            return fountain != null ? ResponseEntity.ok(fountain) : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return fountainService.getFountainByIdAsync(fountainId)
+                .thenApply(fountain -> fountain != null ? ResponseEntity.ok(fountain) : ResponseEntity.status(HttpStatus.NOT_FOUND).<FountainDto>build())
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @PostMapping
-    public ResponseEntity<FountainDto> createFountain(@RequestBody FountainDto fountain) {
-        try {
-            FountainDto fountainCreated = fountainService.createFountain(fountain);
-            return new ResponseEntity<>(fountainCreated, HttpStatus.CREATED);
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public CompletableFuture<ResponseEntity<FountainDto>> createFountain(@RequestBody FountainDto fountain) {
+        return fountainService.createFountainAsync(fountain)
+                .thenApply(fountainCreated -> new ResponseEntity<>(fountainCreated, HttpStatus.CREATED))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @PostMapping("/{fountainId}/device/{deviceId}")
-    public ResponseEntity<FountainDto> addContinuousUseDeviceToFountain(@PathVariable int fountainId, @PathVariable int deviceId) {
-        try{
-            FountainDto addedContinuousDevice = fountainService.addContinuousUseDeviceToFountain(fountainId, deviceId);
-            return new ResponseEntity<>(addedContinuousDevice, HttpStatus.CREATED);
-        }catch (RetrofitException e){
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    public CompletableFuture<ResponseEntity<FountainDto>> addContinuousUseDeviceToFountain(@PathVariable int fountainId, @PathVariable int deviceId) {
+        return fountainService.addContinuousUseDeviceToFountainAsync(fountainId, deviceId)
+                .thenApply(addedContinuousDevice -> new ResponseEntity<>(addedContinuousDevice, HttpStatus.CREATED))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<FountainDto> updateFountain(@RequestBody FountainDto fountain, @PathVariable("id") int fountainId) {
+    public CompletableFuture<ResponseEntity<FountainDto>> updateFountain(@RequestBody FountainDto fountain, @PathVariable("id") int fountainId) {
         if (fountainId <= 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
-        try {
-            FountainDto updatedFountain = fountainService.updateFountain(fountainId, fountain);
-            return new ResponseEntity<>(updatedFountain, HttpStatus.OK);
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return fountainService.updateFountainAsync(fountainId, fountain)
+                .thenApply(updatedFountain -> new ResponseEntity<>(updatedFountain, HttpStatus.OK))
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
     @DeleteMapping("{id}")
-    public ResponseEntity<String> deleteFountain(@PathVariable("id") int fountainId) {
+    public CompletableFuture<ResponseEntity<String>> deleteFountain(@PathVariable("id") int fountainId) {
         if (fountainId <= 0) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
-        }
-        try {
-            Boolean deleted = fountainService.deleteFountain(fountainId);
-            return deleted ? ResponseEntity.ok().build() : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (RetrofitException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
         }
+        return fountainService.deleteFountainAsync(fountainId)
+                .thenApply(deleted -> deleted ? ResponseEntity.ok().<String>build() : ResponseEntity.status(HttpStatus.NOT_FOUND).<String>build())
+                .exceptionally(e -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 }
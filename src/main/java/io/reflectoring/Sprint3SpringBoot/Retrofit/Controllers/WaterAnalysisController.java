@@ -3,76 +3,70 @@ package io.reflectoring.Sprint3SpringBoot.Retrofit.Controllers;
 import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesFountainsDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesWaterAnalysisDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
-import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import io.reflectoring.Sprint3SpringBoot.Services.FavoriteFountainsAnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/wateranalysis")
 public class WaterAnalysisController {
 
     private final WaterAnalysisService waterAnalysisService;
+    private final FavoriteFountainsAnalysisService favoriteFountainsAnalysisService;
 
     @Autowired
-    public WaterAnalysisController(WaterAnalysisService waterAnalysisService) {
+    public WaterAnalysisController(WaterAnalysisService waterAnalysisService, FavoriteFountainsAnalysisService favoriteFountainsAnalysisService) {
         this.waterAnalysisService = waterAnalysisService;
+        this.favoriteFountainsAnalysisService = favoriteFountainsAnalysisService;
     }
 
     @GetMapping
-    public ResponseEntity<List<WaterAnalysisDto>> getAllWaterAnalysis() {
-        try{
-            List<WaterAnalysisDto> waterAnalysis = waterAnalysisService.getAllWaterAnalyses();
-            return waterAnalysis.isEmpty() ? new ResponseEntity<>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(waterAnalysis, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<List<WaterAnalysisDto>>> getAllWaterAnalysis() {
+        return waterAnalysisService.getAllWaterAnalysesAsync()
+                .thenApply(waterAnalysis -> waterAnalysis.isEmpty() ? new ResponseEntity<List<WaterAnalysisDto>>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(waterAnalysis, HttpStatus.OK))
+                .exceptionally(e -> new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<WaterAnalysisDto> getWaterAnalysisById(@PathVariable("id") int id) {
+    public CompletableFuture<ResponseEntity<WaterAnalysisDto>> getWaterAnalysisById(@PathVariable("id") int id) {
         if(id <= 0){
-            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
-        }try{
-            WaterAnalysisDto waterAnalysis = waterAnalysisService.getWaterAnalysisById(id);
-            return new ResponseEntity<>(waterAnalysis, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
         }
+        return waterAnalysisService.getWaterAnalysisByIdAsync(id)
+                .thenApply(waterAnalysis -> new ResponseEntity<>(waterAnalysis, HttpStatus.OK))
+                .exceptionally(e -> new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<WaterAnalysisDto> updateWaterAnalysisById(@RequestBody WaterAnalysisDto waterAnalysis, @PathVariable("id") int id) {
+    public CompletableFuture<ResponseEntity<WaterAnalysisDto>> updateWaterAnalysisById(@RequestBody WaterAnalysisDto waterAnalysis, @PathVariable("id") int id) {
         if(id <= 0){
-            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
-        }try{
-            WaterAnalysisDto updatedWaterAnalysis = waterAnalysisService.updateWaterAnalysis(id, waterAnalysis);
-            return new ResponseEntity<>(updatedWaterAnalysis, HttpStatus.OK);
-        }catch (RetrofitException e){
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
         }
+        return waterAnalysisService.updateWaterAnalysisAsync(id, waterAnalysis)
+                .thenApply(updatedWaterAnalysis -> new ResponseEntity<>(updatedWaterAnalysis, HttpStatus.OK))
+                .exceptionally(e -> new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
     }
 
     @PostMapping
-    public ResponseEntity<WaterAnalysisDto> createWaterAnalysis(@RequestBody WaterAnalysisDto waterAnalysis) {
-        try{
-            WaterAnalysisDto newWaterAnalysis = waterAnalysisService.createWaterAnalysis(waterAnalysis);
-            return new ResponseEntity<>(newWaterAnalysis, HttpStatus.CREATED);
-        }catch (RetrofitException e){
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public CompletableFuture<ResponseEntity<WaterAnalysisDto>> createWaterAnalysis(@RequestBody WaterAnalysisDto waterAnalysis) {
+        return waterAnalysisService.createWaterAnalysisAsync(waterAnalysis)
+                .thenApply(newWaterAnalysis -> new ResponseEntity<>(newWaterAnalysis, HttpStatus.CREATED))
+                .exceptionally(e -> new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR));
     }
 
     @PostMapping("/favorites/analysis")
     public ResponseEntity<UserFavoritesWaterAnalysisDto> getFavoriteFountainsAnalysis(@RequestBody UserFavoritesFountainsDto favoritesDto) {
         try {
-            UserFavoritesWaterAnalysisDto analysisDto = waterAnalysisService.getFavoriteFountainsAnalysis(favoritesDto);
-            return new ResponseEntity<>(analysisDto, HttpStatus.OK);
-        } catch (RetrofitException e) {
+            return new ResponseEntity<>(favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favoritesDto), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
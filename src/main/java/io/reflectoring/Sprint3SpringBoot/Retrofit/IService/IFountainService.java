@@ -29,6 +29,15 @@ public interface IFountainService {
     @GET("fountains/{id}")
     Call<FountainDto> getFountainById(@Path("id") int id);
 
+    /**
+     * Fetches several fountains in a single request.
+     *
+     * @param ids The unique identifiers of the fountains to fetch.
+     * @return a {@link Call} object containing a list of {@link FountainDto} for the ids that exist.
+     */
+    @GET("fountains/batch")
+    Call<List<FountainDto>> getFountainsByIds(@Query("ids") List<Integer> ids);
+
     /**
      * Updates an existing fountain with the provided data.
      *
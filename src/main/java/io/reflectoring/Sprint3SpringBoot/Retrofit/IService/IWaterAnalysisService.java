@@ -1,8 +1,7 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.IService;
 
-import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesFountainsDto;
-import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesWaterAnalysisDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.*;
 
@@ -22,6 +21,15 @@ public interface IWaterAnalysisService {
     @GET("wateranalysis")
     Call<List<WaterAnalysisDto>> getAllWaterAnalyses();
 
+    /**
+     * Fetches all water analyses from the server without converting the body, so it can be read as a stream.
+     *
+     * @return a {@link Call} object containing the raw JSON array of water analyses.
+     */
+    @Streaming
+    @GET("wateranalysis")
+    Call<ResponseBody> streamAllWaterAnalyses();
+
     /**
      * Fetches a specific water analysis by its unique identifier.
      *
@@ -49,12 +57,4 @@ public interface IWaterAnalysisService {
      */
     @POST("wateranalysis")
     Call<WaterAnalysisDto> createWaterAnalysis(@Body WaterAnalysisDto waterAnalysis);
-
-    /**
-     * gets user favorite fountains stats using analysis
-     * @param favoritesDto
-     * @return
-     */
-    @POST("wateranalysis/favorites/analysis")
-    Call<UserFavoritesWaterAnalysisDto> getFavoriteFountainsAnalysis(@Body UserFavoritesFountainsDto favoritesDto);
 }
@@ -0,0 +1,205 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience.UpstreamRejectedException;
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import retrofit2.Invocation;
+import retrofit2.http.*;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OkHttp interceptor that records every upstream call per endpoint template, such as {@code fountains/{id}}.
+ * The template is read from the Retrofit annotation of the called method; calls made outside Retrofit fall back
+ * to the path after {@code api/} with numeric segments replaced by {@code {id}}.
+ *
+ * <p>Registered metrics, exported through Actuator:</p>
+ * <ul>
+ *   <li>{@code upstream.requests}: a timer with a percentile histogram, from sending the request to receiving
+ *   the response headers, tagged with {@code uri}, {@code method}, {@code status} (the status class, such as
+ *   {@code 2xx}, or {@code NONE}) and {@code outcome}.</li>
+ *   <li>{@code upstream.request.bytes} and {@code upstream.response.bytes}: counters of body bytes sent and
+ *   received, tagged with {@code uri} and {@code method}. Bodies without a declared length are counted as they are read.</li>
+ * </ul>
+ * Calls refused by the circuit breaker or the bulkhead are recorded with the {@code REJECTED} outcome.
+ */
+@Component
+public class UpstreamMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> byteCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String uri = templateOf(request);
+        String method = request.method();
+        Counter[] bytes = byteCounters.computeIfAbsent(method + ' ' + uri, key -> createByteCounters(uri, method));
+
+        RequestBody requestBody = request.body();
+        if (requestBody != null && requestBody.contentLength() > 0) {
+            bytes[0].increment(requestBody.contentLength());
+        }
+
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            record(uri, method, "NONE", e instanceof UpstreamRejectedException ? "REJECTED" : "IO_ERROR", System.nanoTime() - start);
+            throw e;
+        }
+        record(uri, method, response.code() / 100 + "xx", outcomeOf(response.code()), System.nanoTime() - start);
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        long length = body.contentLength();
+        if (length >= 0) {
+            bytes[1].increment(length);
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(body, bytes[1])).build();
+    }
+
+    private void record(String uri, String method, String status, String outcome, long nanos) {
+        String key = method + ' ' + uri + ' ' + status + ' ' + outcome;
+        timers.computeIfAbsent(key, k -> Timer.builder("upstream.requests")
+                        .description("Upstream calls, from request to response headers")
+                        .tag("uri", uri)
+                        .tag("method", method)
+                        .tag("status", status)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter[] createByteCounters(String uri, String method) {
+        return new Counter[]{
+                Counter.builder("upstream.request.bytes").tag("uri", uri).tag("method", method).baseUnit("bytes").register(meterRegistry),
+                Counter.builder("upstream.response.bytes").tag("uri", uri).tag("method", method).baseUnit("bytes").register(meterRegistry)
+        };
+    }
+
+    static String outcomeOf(int code) {
+        if (code >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (code >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (code >= 300) {
+            return "REDIRECTION";
+        }
+        return code >= 200 ? "SUCCESS" : "INFORMATIONAL";
+    }
+
+    static String templateOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            for (Annotation annotation : invocation.method().getAnnotations()) {
+                String path = pathOf(annotation);
+                if (path != null) {
+                    return path.startsWith("/") ? path.substring(1) : path;
+                }
+            }
+        }
+
+        List<String> segments = request.url().pathSegments();
+        int api = segments.indexOf("api");
+        StringBuilder template = new StringBuilder();
+        for (int i = api + 1; i < segments.size(); i++) {
+            if (!template.isEmpty()) {
+                template.append('/');
+            }
+            String segment = segments.get(i);
+            template.append(!segment.isEmpty() && segment.chars().allMatch(Character::isDigit) ? "{id}" : segment);
+        }
+        return template.toString();
+    }
+
+    private static String pathOf(Annotation annotation) {
+        if (annotation instanceof GET get) {
+            return get.value();
+        }
+        if (annotation instanceof POST post) {
+            return post.value();
+        }
+        if (annotation instanceof PUT put) {
+            return put.value();
+        }
+        if (annotation instanceof DELETE delete) {
+            return delete.value();
+        }
+        if (annotation instanceof PATCH patch) {
+            return patch.value();
+        }
+        if (annotation instanceof HTTP http) {
+            return http.path();
+        }
+        return null;
+    }
+
+    /**
+     * Response body that counts bytes as the caller reads them, for streamed responses of unknown length.
+     */
+    private static final class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        private CountingResponseBody(ResponseBody delegate, Counter counter) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NotNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        counter.increment(read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NotNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of concurrent calls to one upstream resource.
+ * A caller waits at most {@code maxWaitMs} for a free slot before being rejected, so a slow
+ * upstream cannot hold every request thread.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+
+    /**
+     * @param maxConcurrentCalls Calls allowed in flight at once.
+     * @param maxWaitMs          How long, in milliseconds, a caller may wait for a slot. Zero fails immediately.
+     */
+    public Bulkhead(int maxConcurrentCalls, long maxWaitMs) {
+        if (maxConcurrentCalls <= 0 || maxWaitMs < 0) {
+            throw new IllegalArgumentException("Bulkhead size must be higher than zero.");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * @return true if a slot was taken; it must then be given back with {@link #release()}.
+     */
+    public boolean tryAcquire() {
+        try {
+            return permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getAvailableCalls() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+}
@@ -0,0 +1,169 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for one upstream resource.
+ * The outcomes of the last {@code windowSize} calls are kept in a ring buffer. Once at least
+ * {@code minimumCalls} outcomes are recorded and the failure rate reaches the threshold, the circuit
+ * opens and calls are rejected for {@code openDuration}. After that, up to {@code halfOpenProbes}
+ * calls are let through: the circuit closes if all of them succeed and opens again on the first failure.
+ * Every permission is tagged with the generation of the state it was granted in, and every state change starts
+ * a new generation, so a slow call admitted before the circuit opened cannot be taken for a half-open probe.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquirePermission()} when the call must be rejected.
+     */
+    public static final long REJECTED = -1;
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * Creates a closed circuit breaker.
+     *
+     * @param failureRateThreshold Failure percentage, 1 to 100, that opens the circuit.
+     * @param minimumCalls         Calls that must be recorded before the failure rate is evaluated.
+     * @param windowSize           Number of most recent calls the failure rate is computed over.
+     * @param openDurationMs       How long, in milliseconds, the circuit stays open before probing.
+     * @param halfOpenProbes       Calls let through while half-open.
+     */
+    public CircuitBreaker(int failureRateThreshold, int minimumCalls, int windowSize, long openDurationMs, int halfOpenProbes) {
+        this(failureRateThreshold, minimumCalls, windowSize, openDurationMs, halfOpenProbes, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureRateThreshold, int minimumCalls, int windowSize, long openDurationMs, int halfOpenProbes, LongSupplier clock) {
+        if (failureRateThreshold < 1 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("Failure rate threshold must be between 1 and 100.");
+        }
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenProbes <= 0 || openDurationMs <= 0) {
+            throw new IllegalArgumentException("Circuit breaker sizes and durations must be higher than zero.");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.window = new boolean[windowSize];
+        this.openDurationNanos = openDurationMs * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+    }
+
+    /**
+     * Asks for permission to run a call. Every permitted call must be followed by
+     * {@link #onSuccess(long)} or {@link #onFailure(long)} with the returned permission.
+     *
+     * @return the permission, or {@link #REJECTED} if the call must be rejected.
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationNanos) {
+                return REJECTED;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                return REJECTED;
+            }
+            probesStarted++;
+        }
+        return generation;
+    }
+
+    /**
+     * Gives back a permission that was acquired but not used to run a call, without recording an outcome.
+     */
+    public synchronized void releasePermission(long permission) {
+        if (permission == generation && state == State.HALF_OPEN && probesStarted > 0) {
+            probesStarted--;
+        }
+    }
+
+    public synchronized void onSuccess(long permission) {
+        // Outcomes of calls admitted before the last state change say nothing about the current one
+        if (permission != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(long permission) {
+        if (permission != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * recordedCalls) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return the failure percentage over the current window, or 0 if no calls were recorded.
+     */
+    public synchronized double getFailureRate() {
+        return recordedCalls == 0 ? 0.0 : failedCalls * 100.0 / recordedCalls;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transitionTo(State newState) {
+        state = newState;
+        generation++;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAt = clock.getAsLong();
+        }
+        if (newState == State.CLOSED) {
+            windowIndex = 0;
+            recordedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link UpstreamResilienceInterceptor} when a call is rejected without reaching the upstream API,
+ * because the resource's circuit is open or its bulkhead is full.
+ * It is an {@link IOException} so OkHttp reports it like any other transport failure and the Retrofit
+ * services turn it into a {@code RetrofitException}.
+ */
+public class UpstreamRejectedException extends IOException {
+
+    public UpstreamRejectedException(String message) {
+        super(message);
+    }
+}
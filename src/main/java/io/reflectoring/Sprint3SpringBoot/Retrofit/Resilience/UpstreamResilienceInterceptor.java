@@ -0,0 +1,151 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OkHttp interceptor that puts a {@link CircuitBreaker} and a {@link Bulkhead} in front of every upstream resource.
+ * The resource is the first path segment after {@code api/} ({@code fountains}, {@code wateranalysis},
+ * {@code device}, {@code continuoususedevice}), so a failing resource does not cut off the others.
+ * Transport errors and 5xx responses count as failures; 4xx responses are the caller's fault and count as successes.
+ * Rejected calls fail fast with an {@link UpstreamRejectedException}.
+ *
+ * <p>Per resource, the following metrics are registered:
+ * {@code upstream.circuit.state} (0 closed, 1 open, 2 half-open), {@code upstream.circuit.failure.rate},
+ * {@code upstream.bulkhead.available.calls} and {@code upstream.calls.rejected} tagged with the reason.</p>
+ */
+@Component
+public class UpstreamResilienceInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final int windowSize;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    @Autowired
+    public UpstreamResilienceInterceptor(MeterRegistry meterRegistry,
+                                         @Value("${upstream.resilience.failure-rate-threshold:50}") int failureRateThreshold,
+                                         @Value("${upstream.resilience.minimum-calls:10}") int minimumCalls,
+                                         @Value("${upstream.resilience.window-size:20}") int windowSize,
+                                         @Value("${upstream.resilience.open-duration-ms:10000}") long openDurationMs,
+                                         @Value("${upstream.resilience.half-open-probes:3}") int halfOpenProbes,
+                                         @Value("${upstream.resilience.max-concurrent-calls:32}") int maxConcurrentCalls,
+                                         @Value("${upstream.resilience.max-wait-ms:100}") long maxWaitMs) {
+        this.meterRegistry = meterRegistry;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.windowSize = windowSize;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String resource = resourceOf(request);
+        Guard guard = guards.computeIfAbsent(resource, this::createGuard);
+
+        long permission = guard.circuitBreaker.tryAcquirePermission();
+        if (permission == CircuitBreaker.REJECTED) {
+            guard.rejectedByCircuit.increment();
+            throw new UpstreamRejectedException("Circuit open for upstream resource " + resource);
+        }
+        if (!guard.bulkhead.tryAcquire()) {
+            guard.circuitBreaker.releasePermission(permission);
+            guard.rejectedByBulkhead.increment();
+            throw new UpstreamRejectedException("Too many concurrent calls to upstream resource " + resource);
+        }
+
+        try {
+            Response response = chain.proceed(request);
+            if (response.code() >= 500) {
+                guard.circuitBreaker.onFailure(permission);
+            } else {
+                guard.circuitBreaker.onSuccess(permission);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            guard.circuitBreaker.onFailure(permission);
+            throw e;
+        } finally {
+            guard.bulkhead.release();
+        }
+    }
+
+    /**
+     * @return the current circuit state of the resource, or {@link CircuitBreaker.State#CLOSED} if it was never called.
+     */
+    public CircuitBreaker.State getState(String resource) {
+        Guard guard = guards.get(resource);
+        return guard == null ? CircuitBreaker.State.CLOSED : guard.circuitBreaker.getState();
+    }
+
+    static String resourceOf(Request request) {
+        List<String> segments = request.url().pathSegments();
+        int api = segments.indexOf("api");
+        int index = api >= 0 && api + 1 < segments.size() ? api + 1 : 0;
+        return segments.isEmpty() ? "" : segments.get(index).toLowerCase();
+    }
+
+    private Guard createGuard(String resource) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(failureRateThreshold, minimumCalls, windowSize, openDurationMs, halfOpenProbes);
+        Bulkhead bulkhead = new Bulkhead(maxConcurrentCalls, maxWaitMs);
+
+        Gauge.builder("upstream.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .tag("resource", resource)
+                .description("Circuit state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("upstream.circuit.failure.rate", circuitBreaker, CircuitBreaker::getFailureRate)
+                .tag("resource", resource)
+                .baseUnit("percent")
+                .register(meterRegistry);
+        Gauge.builder("upstream.bulkhead.available.calls", bulkhead, Bulkhead::getAvailableCalls)
+                .tag("resource", resource)
+                .register(meterRegistry);
+
+        return new Guard(circuitBreaker, bulkhead,
+                rejectedCounter(resource, "circuit_open"),
+                rejectedCounter(resource, "bulkhead_full"));
+    }
+
+    private Counter rejectedCounter(String resource, String reason) {
+        return Counter.builder("upstream.calls.rejected")
+                .tag("resource", resource)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class Guard {
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final Counter rejectedByCircuit;
+        private final Counter rejectedByBulkhead;
+
+        private Guard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Counter rejectedByCircuit, Counter rejectedByBulkhead) {
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.rejectedByCircuit = rejectedByCircuit;
+            this.rejectedByBulkhead = rejectedByBulkhead;
+        }
+    }
+}
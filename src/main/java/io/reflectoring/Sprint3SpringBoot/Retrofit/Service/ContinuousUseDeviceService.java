@@ -1,5 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
 
+import io.reflectoring.Sprint3SpringBoot.Cache.SingleFlight;
 import io.reflectoring.Sprint3SpringBoot.Dto.ContinuousUseDeviceDto;
 import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IContinuousUseDeviceService;
@@ -9,16 +10,24 @@ import retrofit2.Response;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class for managing continuous use devices.
  * This class interacts with the Retrofit API client to perform CRUD operations.
+ * Reads are coalesced: callers asking for the same data at the same time share one request.
  */
 @Service
 public class ContinuousUseDeviceService {
 
+    private static final String ALL = "all";
+
     private final IContinuousUseDeviceService continuousUseDeviceService;
 
+    private final SingleFlight<Integer, ContinuousUseDeviceDto> deviceByIdFlights = new SingleFlight<>();
+
+    private final SingleFlight<String, List<ContinuousUseDeviceDto>> allDevicesFlights = new SingleFlight<>();
+
     /**
      * Constructor for dependency injection.
      *
@@ -35,16 +44,18 @@ public class ContinuousUseDeviceService {
      * @return A list of {@link ContinuousUseDeviceDto} objects representing all continuous use devices.
      */
     public List<ContinuousUseDeviceDto> getAllContinuousUseDevices() {
-        try {
-            Response<List<ContinuousUseDeviceDto>> response = continuousUseDeviceService.getAllContinuousUseDevices().execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error fetching continuous use devices: " + response.code());
+        return allDevicesFlights.call(ALL, () -> {
+            try {
+                Response<List<ContinuousUseDeviceDto>> response = continuousUseDeviceService.getAllContinuousUseDevices().execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error fetching continuous use devices: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Failed to fetch continuous use devices" + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Failed to fetch continuous use devices" + e);
-        }
+        });
     }
 
     /**
@@ -54,16 +65,18 @@ public class ContinuousUseDeviceService {
      * @return A {@link ContinuousUseDeviceDto} representing the requested continuous use device.
      */
     public ContinuousUseDeviceDto getContinuousUseDeviceById(int id) {
-        try {
-            Response<ContinuousUseDeviceDto> response = continuousUseDeviceService.getContinuousUseDeviceById(id).execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error fetching continuous use device with ID: " + id + ", Status Code: " + response.code());
+        return deviceByIdFlights.call(id, () -> {
+            try {
+                Response<ContinuousUseDeviceDto> response = continuousUseDeviceService.getContinuousUseDeviceById(id).execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error fetching continuous use device with ID: " + id + ", Status Code: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Failed to fetch continuous use device with ID: " + id + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Failed to fetch continuous use device with ID: " + id + e);
-        }
+        });
     }
 
     /**
@@ -118,4 +131,60 @@ public class ContinuousUseDeviceService {
             throw new RetrofitException("Failed to create continuous use device" + e);
         }
     }
+
+    /**
+     * Asynchronous counterpart of {@link #getAllContinuousUseDevices()}.
+     *
+     * @return A future for the list of {@link ContinuousUseDeviceDto}.
+     */
+    public CompletableFuture<List<ContinuousUseDeviceDto>> getAllContinuousUseDevicesAsync() {
+        return allDevicesFlights.callAsync(ALL, () -> RetrofitCalls.enqueue(continuousUseDeviceService.getAllContinuousUseDevices(),
+                "Error fetching continuous use devices: ", "Failed to fetch continuous use devices"));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #getContinuousUseDeviceById(int)}.
+     *
+     * @param id The unique identifier of the continuous use device.
+     * @return A future for the {@link ContinuousUseDeviceDto}.
+     */
+    public CompletableFuture<ContinuousUseDeviceDto> getContinuousUseDeviceByIdAsync(int id) {
+        return deviceByIdFlights.callAsync(id, () -> RetrofitCalls.enqueue(continuousUseDeviceService.getContinuousUseDeviceById(id),
+                "Error fetching continuous use device with ID: " + id + ", Status Code: ", "Failed to fetch continuous use device with ID: " + id));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateContinuousUseDevice(int, ContinuousUseDeviceDto)}.
+     *
+     * @param id                     The unique identifier of the continuous use device.
+     * @param continuousUseDeviceDto The updated {@link ContinuousUseDeviceDto} data.
+     * @return A future for the updated {@link ContinuousUseDeviceDto}.
+     */
+    public CompletableFuture<ContinuousUseDeviceDto> updateContinuousUseDeviceAsync(int id, ContinuousUseDeviceDto continuousUseDeviceDto) {
+        return RetrofitCalls.enqueue(continuousUseDeviceService.updateContinuousUseDevice(id, continuousUseDeviceDto),
+                "Error updating continuous use device with ID: " + id + ", Status Code: ", "Failed to update continuous use device with ID: " + id);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateContinuousUseDeviceFrequency(int, int)}.
+     *
+     * @param id        The unique identifier of the continuous use device.
+     * @param frequency The new analysis frequency.
+     * @return A future for the updated {@link ContinuousUseDeviceDto}.
+     */
+    public CompletableFuture<ContinuousUseDeviceDto> updateContinuousUseDeviceFrequencyAsync(int id, int frequency) {
+        return RetrofitCalls.enqueue(continuousUseDeviceService.updateFrequency(id, frequency),
+                "Error updating frequency from continuous use device with ID: " + id + ", Status Code: ", "Failed to update frequency from continuous use device with ID: " + id);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #createContinuousUseDevice(ContinuousUseDeviceDto)}.
+     *
+     * @param continuousUseDeviceDto The {@link ContinuousUseDeviceDto} object to be created.
+     * @return A future for the created {@link ContinuousUseDeviceDto}.
+     */
+    public CompletableFuture<ContinuousUseDeviceDto> createContinuousUseDeviceAsync(ContinuousUseDeviceDto continuousUseDeviceDto) {
+        return RetrofitCalls.enqueue(continuousUseDeviceService.createContinuousUseDevice(continuousUseDeviceDto),
+                "Error creating continuous use device, Status Code: ", "Failed to create continuous use device");
+    }
 }
@@ -1,5 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
 
+import io.reflectoring.Sprint3SpringBoot.Cache.SingleFlight;
 import io.reflectoring.Sprint3SpringBoot.Dto.DeviceDto;
 import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IDeviceService;
@@ -9,16 +10,24 @@ import retrofit2.Response;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class for handling device-related operations using Retrofit.
  * It uses the {@link IDeviceService} interface to communicate with the API endpoints.
+ * Concurrent reads of the same device, or of the device list, share a single upstream request.
  */
 @Service
 public class DeviceService {
 
+    private static final String ALL = "all";
+
     private final IDeviceService deviceService;
 
+    private final SingleFlight<Integer, DeviceDto> deviceByIdFlights = new SingleFlight<>();
+
+    private final SingleFlight<String, List<DeviceDto>> allDevicesFlights = new SingleFlight<>();
+
     @Autowired
     public DeviceService(IDeviceService deviceService){
         this.deviceService = deviceService;
@@ -31,16 +40,18 @@ public class DeviceService {
      * @return The {@link DeviceDto} object representing the device.
      */
     public DeviceDto getDeviceById(int deviceId){
-        try {
-            Response<DeviceDto> response = deviceService.getDeviceById(deviceId).execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error: " + response.code());
+        return deviceByIdFlights.call(deviceId, () -> {
+            try {
+                Response<DeviceDto> response = deviceService.getDeviceById(deviceId).execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Error fetching device by ID" + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Error fetching device by ID" + e);
-        }
+        });
     }
 
     /**
@@ -49,16 +60,18 @@ public class DeviceService {
      * @return A list of {@link DeviceDto} objects representing all devices.
      */
     public List<DeviceDto> getAllDevices() {
-        try {
-            Response<List<DeviceDto>> response = deviceService.getAllDevices().execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error: " + response.code());
+        return allDevicesFlights.call(ALL, () -> {
+            try {
+                Response<List<DeviceDto>> response = deviceService.getAllDevices().execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Error fetching all devices" + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Error fetching all devices" + e);
-        }
+        });
     }
 
     /**
@@ -102,4 +115,44 @@ public class DeviceService {
             throw new RetrofitException("Error creating device" + e);
         }
     }
+
+    /**
+     * Asynchronous counterpart of {@link #getDeviceById(int)}.
+     *
+     * @param deviceId The unique identifier of the device.
+     * @return A future for the {@link DeviceDto}.
+     */
+    public CompletableFuture<DeviceDto> getDeviceByIdAsync(int deviceId) {
+        return deviceByIdFlights.callAsync(deviceId, () -> RetrofitCalls.enqueue(deviceService.getDeviceById(deviceId), "Error: ", "Error fetching device by ID"));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #getAllDevices()}.
+     *
+     * @return A future for the list of {@link DeviceDto}.
+     */
+    public CompletableFuture<List<DeviceDto>> getAllDevicesAsync() {
+        return allDevicesFlights.callAsync(ALL, () -> RetrofitCalls.enqueue(deviceService.getAllDevices(), "Error: ", "Error fetching all devices"));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateDevice(int, DeviceDto)}.
+     *
+     * @param deviceId The unique identifier of the device to be updated.
+     * @param device A {@link DeviceDto} object containing the updated data.
+     * @return A future for the updated {@link DeviceDto}.
+     */
+    public CompletableFuture<DeviceDto> updateDeviceAsync(int deviceId, DeviceDto device) {
+        return RetrofitCalls.enqueue(deviceService.updateDevice(deviceId, device), "Error updating device: ", "Error updating device");
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #createDevice(DeviceDto)}.
+     *
+     * @param device A {@link DeviceDto} object containing the new device data.
+     * @return A future for the created {@link DeviceDto}.
+     */
+    public CompletableFuture<DeviceDto> createDeviceAsync(DeviceDto device) {
+        return RetrofitCalls.enqueue(deviceService.createDevice(device), "Error creating device: ", "Error creating device");
+    }
 }
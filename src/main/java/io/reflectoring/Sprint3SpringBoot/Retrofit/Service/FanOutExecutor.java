@@ -0,0 +1,131 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+/**
+ * Resolves lists of remote ids in parallel on virtual threads.
+ * Each call to {@link #resolve(List, IntFunction)} runs at most {@code maxConcurrency} upstream
+ * calls at a time, gives every call its own deadline and keeps the order of the input ids.
+ * Failed or timed out ids are reported in the returned {@link FanOutResult} instead of failing the whole batch.
+ */
+@Component
+public class FanOutExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int maxConcurrency;
+
+    private final long callTimeoutMs;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param maxConcurrency The maximum number of upstream calls running at once for a single fan-out.
+     * @param callTimeoutMs  The deadline, in milliseconds, for each individual upstream call.
+     */
+    @Autowired
+    public FanOutExecutor(@Value("${fanout.max-concurrency:16}") int maxConcurrency,
+                          @Value("${fanout.call-timeout-ms:5000}") long callTimeoutMs) {
+        if (maxConcurrency <= 0 || callTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Fan-out concurrency and timeout must be higher than zero.");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.callTimeoutMs = callTimeoutMs;
+    }
+
+    /**
+     * Fetches every id with the given function, in parallel.
+     *
+     * @param ids     The ids to resolve. Order is preserved in the result.
+     * @param fetcher The blocking call that resolves a single id.
+     * @return A {@link FanOutResult} with the resolved values and the ids that failed.
+     */
+    public <T> FanOutResult<T> resolve(List<Integer> ids, IntFunction<T> fetcher) {
+        if (ids == null || ids.isEmpty()) {
+            return new FanOutResult<>(new ArrayList<>(), new LinkedHashMap<>());
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<T>> futures = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            futures.add(executor.submit(() -> callWithPermit(permits, id, fetcher)));
+        }
+
+        List<T> values = new ArrayList<>(ids.size());
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Integer id = ids.get(i);
+            try {
+                T value = futures.get(i).get();
+                if (value != null) {
+                    values.add(value);
+                }
+            } catch (ExecutionException e) {
+                failures.put(id, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new RetrofitException("Interrupted while resolving remote ids");
+            }
+        }
+
+        return new FanOutResult<>(values, failures);
+    }
+
+    private <T> T callWithPermit(Semaphore permits, int id, IntFunction<T> fetcher) throws Exception {
+        permits.acquire();
+        try {
+            Future<T> call = executor.submit(() -> fetcher.apply(id));
+            try {
+                return call.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                throw new RetrofitException("Timed out after " + callTimeoutMs + " ms resolving ID: " + id);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Outcome of a fan-out: the resolved values, in input order, and the ids that could not be resolved.
+     */
+    public static class FanOutResult<T> {
+
+        private final List<T> values;
+
+        private final Map<Integer, String> failures;
+
+        public FanOutResult(List<T> values, Map<Integer, String> failures) {
+            this.values = values;
+            this.failures = failures;
+        }
+
+        public List<T> getValues() {
+            return values;
+        }
+
+        public Map<Integer, String> getFailures() {
+            return failures;
+        }
+
+        public boolean hasFailures() {
+            return !failures.isEmpty();
+        }
+    }
+}
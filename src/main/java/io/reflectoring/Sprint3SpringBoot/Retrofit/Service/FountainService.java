@@ -1,33 +1,80 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
 
-import io.reflectoring.Sprint3SpringBoot.Dto.ContinuousUseDeviceDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Cache.SingleFlight;
+import io.reflectoring.Sprint3SpringBoot.Cache.TtlCache;
 import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
 import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IFountainService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import retrofit2.Response;
 
 import java.io.IOException;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service class for handling fountain-related operations using Retrofit.
  * It uses the {@link IFountainService} interface to communicate with the API endpoints.
+ * Fountains are kept in a bounded {@link TtlCache} keyed by id; writes made through this
+ * service refresh or invalidate the cached entry. Concurrent cache misses for the same fountain,
+ * and concurrent full listings, share a single upstream request. A read that overlapped a write does not
+ * cache what it fetched, since it may be the fountain as it was before the write.
+ * The cache holds its own copies and hands out copies, so a caller changing a returned fountain
+ * does not change what other callers read.
  */
 @Service
 public class FountainService {
 
+    private static final String ALL = "all";
+
     private final IFountainService fountainService;
 
+    /**
+     * The {@link System#nanoTime()} before which batch lookups go straight to the local fallback. Set whenever the
+     * upstream API answers the batch endpoint with 404/405/501, so an upstream that gains the endpoint later,
+     * or answered so during a deployment, is probed again once the interval has passed.
+     */
+    private volatile long batchEndpointRetryAt;
+
+    // Written after batchEndpointRetryAt, so a reader that sees it set also sees the retry time
+    private volatile boolean batchEndpointSkipped;
+
+    private final long batchReprobeNanos;
+
+    private final TtlCache<Integer, FountainDto> fountainCache;
+
+    private final SingleFlight<Integer, FountainDto> fountainByIdFlights = new SingleFlight<>();
+
+    private final SingleFlight<String, List<FountainDto>> allFountainsFlights = new SingleFlight<>();
+
+    // Bumped by every write before it refreshes the cache, so reads that overlapped it do not put old bodies back
+    private final AtomicLong writes = new AtomicLong();
+
     /**
      * Constructor to inject the Retrofit service interface.
      *
      * @param fountainService The {@link IFountainService} instance used for API calls.
+     * @param cacheMaxSize    The maximum number of fountains kept in the cache.
+     * @param cacheTtlMs      How long, in milliseconds, a cached fountain stays valid.
+     * @param batchReprobeMs  How long, in milliseconds, batch lookups use the fallback after the upstream reported
+     *                        the batch endpoint as unsupported, before trying it again.
+     * @param meterRegistry   The registry the cache counters are published to, tagged {@code cache=fountains}.
      */
     @Autowired
-    public FountainService(IFountainService fountainService) {
+    public FountainService(IFountainService fountainService,
+                           @Value("${fountain.cache.max-size:1000}") int cacheMaxSize,
+                           @Value("${fountain.cache.ttl-ms:60000}") long cacheTtlMs,
+                           @Value("${fountain.batch.reprobe-interval-ms:300000}") long batchReprobeMs,
+                           MeterRegistry meterRegistry) {
         this.fountainService = fountainService;
+        this.batchReprobeNanos = batchReprobeMs * 1_000_000L;
+        this.fountainCache = new TtlCache<>(cacheMaxSize, Duration.ofMillis(cacheTtlMs));
+        this.fountainCache.bindTo(meterRegistry, "fountains");
     }
 
     /**
@@ -36,16 +83,23 @@ public class FountainService {
      * @return A list of {@link FountainDto} objects representing all fountains.
      */
     public List<FountainDto> getAllFountains() {
-        try {
-            Response<List<FountainDto>> response = fountainService.getAllFountains().execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error fetching fountains " + response.code());
+        return allFountainsFlights.call(ALL, () -> {
+            long seen = writes.get();
+            try {
+                Response<List<FountainDto>> response = fountainService.getAllFountains().execute();
+                if (response.isSuccessful()) {
+                    List<FountainDto> fountains = response.body();
+                    if (fountains != null) {
+                        fountains.forEach(fountain -> cacheFountain(seen, fountain));
+                    }
+                    return fountains;
+                } else {
+                    throw new RetrofitException("Error fetching fountains " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Error retrieving fountains" + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Error retrieving fountains" + e);
-        }
+        });
     }
 
     /**
@@ -55,18 +109,168 @@ public class FountainService {
      * @return The {@link FountainDto} object representing the requested fountain.
      */
     public FountainDto getFountainById(int fountainId) {
+        FountainDto cached = fountainCache.get(fountainId);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        return fountainByIdFlights.call(fountainId, () -> {
+            long seen = writes.get();
+            try {
+                Response<FountainDto> response = fountainService.getFountainById(fountainId).execute();
+                if (response.isSuccessful()) {
+                    cacheFountain(seen, fountainId, response.body());
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error fetching fountain: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Error retrieving fountain" + e);
+            }
+        });
+    }
+
+    /**
+     * Fetches several fountains at once, keeping the order of the given ids.
+     * Uses the upstream batch endpoint when available, otherwise falls back to a single
+     * {@link #getAllFountains()} call filtered locally. Ids that do not exist are skipped.
+     *
+     * @param fountainIds The unique identifiers of the fountains.
+     * @return A list of {@link FountainDto} objects in the order of {@code fountainIds}.
+     */
+    public List<FountainDto> getFountainsByIds(Collection<Integer> fountainIds) {
+        if (fountainIds == null || fountainIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<FountainDto> found = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(fountainIds)) {
+            FountainDto cached = fountainCache.get(id);
+            if (cached != null) {
+                found.add(copy(cached));
+            } else {
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long seen = writes.get();
+            List<FountainDto> fetched = batchEndpointAvailable() ? fetchBatch(missing) : null;
+            if (fetched == null) {
+                fetched = getAllFountains();
+            } else {
+                fetched.forEach(fountain -> cacheFountain(seen, fountain));
+            }
+            if (fetched != null) {
+                found.addAll(fetched);
+            }
+        }
+
+        return orderByIds(fountainIds, found);
+    }
+
+    private boolean batchEndpointAvailable() {
+        return !batchEndpointSkipped || System.nanoTime() - batchEndpointRetryAt >= 0;
+    }
+
+    /**
+     * Calls the upstream batch endpoint.
+     *
+     * @return the fountains returned, or null if the endpoint is not supported upstream.
+     */
+    private List<FountainDto> fetchBatch(List<Integer> ids) {
         try {
-            Response<FountainDto> response = fountainService.getFountainById(fountainId).execute();
+            Response<List<FountainDto>> response = fountainService.getFountainsByIds(ids).execute();
             if (response.isSuccessful()) {
                 return response.body();
-            } else {
-                throw new RetrofitException("Error fetching fountain: " + response.code());
             }
+            if (response.code() == 404 || response.code() == 405 || response.code() == 501) {
+                batchEndpointRetryAt = System.nanoTime() + batchReprobeNanos;
+                batchEndpointSkipped = true;
+                return null;
+            }
+            throw new RetrofitException("Error fetching fountains batch: " + response.code());
         } catch (IOException e) {
-            throw new RetrofitException("Error retrieving fountain" + e);
+            throw new RetrofitException("Error retrieving fountains batch" + e);
+        }
+    }
+
+    private void cacheFountain(FountainDto fountain) {
+        if (fountain != null) {
+            fountainCache.put(fountain.getId(), copy(fountain));
+        }
+    }
+
+    private void cacheFountain(long seen, FountainDto fountain) {
+        if (fountain != null) {
+            cacheFountain(seen, fountain.getId(), fountain);
         }
     }
 
+    /**
+     * Caches a fountain fetched by a read that started when the write counter was {@code seen},
+     * unless a write happened since.
+     */
+    private void cacheFountain(long seen, int fountainId, FountainDto fountain) {
+        if (writes.get() != seen) {
+            return;
+        }
+        fountainCache.put(fountainId, copy(fountain));
+        // A write may have refreshed the entry between the check and the put; drop whatever is there now
+        if (writes.get() != seen) {
+            fountainCache.invalidate(fountainId);
+        }
+    }
+
+    /**
+     * Replaces the cached fountain with the body returned by a write, or just drops it if the write returned none.
+     */
+    private void written(int fountainId, FountainDto fountain) {
+        writes.incrementAndGet();
+        fountainCache.invalidate(fountainId);
+        if (fountain != null) {
+            fountainCache.put(fountainId, copy(fountain));
+        }
+    }
+
+    private static FountainDto copy(FountainDto fountain) {
+        if (fountain == null) {
+            return null;
+        }
+        FountainDto copy = new FountainDto();
+        copy.id = fountain.id;
+        copy.description = fountain.description;
+        copy.susceptibilityIndex = fountain.susceptibilityIndex;
+        copy.continuousUseDeviceId = fountain.continuousUseDeviceId;
+        copy.isDrinkable = fountain.isDrinkable;
+        copy.latitude = fountain.latitude;
+        copy.longitude = fountain.longitude;
+        return copy;
+    }
+
+    private static List<FountainDto> orderByIds(Collection<Integer> fountainIds, List<FountainDto> fountains) {
+        List<FountainDto> ordered = new ArrayList<>(fountainIds.size());
+        if (fountains == null) {
+            return ordered;
+        }
+
+        Map<Integer, FountainDto> byId = new HashMap<>();
+        for (FountainDto fountain : fountains) {
+            if (fountain != null) {
+                byId.put(fountain.getId(), fountain);
+            }
+        }
+
+        for (Integer id : fountainIds) {
+            FountainDto fountain = byId.get(id);
+            if (fountain != null) {
+                ordered.add(fountain);
+            }
+        }
+        return ordered;
+    }
+
     /**
      * Updates an existing fountain with the provided data.
      *
@@ -75,15 +279,20 @@ public class FountainService {
      * @return The updated {@link FountainDto}.
      */
     public FountainDto updateFountain(int fountainId, FountainDto fountain) {
+        FountainDto updated = null;
         try {
             Response<FountainDto> response = fountainService.updateFountain(fountainId, fountain).execute();
             if (response.isSuccessful()) {
-                return response.body();
+                updated = response.body();
+                return updated;
             } else {
                 throw new RetrofitException("Error updating fountain: " + response.code());
             }
         } catch (IOException e) {
             throw new RetrofitException("Error updating fountain" + e);
+        } finally {
+            // Even a failed or timed out write may have reached the upstream, so the cached fountain is dropped either way
+            written(fountainId, updated);
         }
     }
 
@@ -97,6 +306,7 @@ public class FountainService {
         try {
             Response<FountainDto> response = fountainService.createFountain(fountain).execute();
             if (response.isSuccessful()) {
+                cacheFountain(response.body());
                 return response.body();
             } else {
                 throw new RetrofitException("Error creating fountain: " + response.code());
@@ -111,15 +321,19 @@ public class FountainService {
             throw new IllegalArgumentException("The IDs must be higher than zero.");
         }
 
+        FountainDto updated = null;
         try {
             Response<FountainDto> response = fountainService.addContinuousUseDeviceToFountain(fountainId, deviceId).execute();
             if (response.isSuccessful()) {
-                return response.body();
+                updated = response.body();
+                return updated;
             } else {
                 throw new RetrofitException("Error associating device: " + response.code());
             }
         } catch (IOException e) {
             throw new RetrofitException("Error associating device: " + e.getMessage());
+        } finally {
+            written(fountainId, updated);
         }
     }
 
@@ -143,8 +357,104 @@ public class FountainService {
             }
         } catch (IOException e) {
             throw new RetrofitException("Error deleting fountain" + e);
+        } finally {
+            written(fountainId, null);
         }
     }
 
+    /**
+     * Asynchronous counterpart of {@link #getAllFountains()}.
+     *
+     * @return A future for the list of {@link FountainDto}.
+     */
+    public CompletableFuture<List<FountainDto>> getAllFountainsAsync() {
+        long seen = writes.get();
+        return allFountainsFlights.callAsync(ALL, () -> RetrofitCalls.enqueue(fountainService.getAllFountains(), "Error fetching fountains ", "Error retrieving fountains")
+                .thenApply(fountains -> {
+                    if (fountains != null) {
+                        fountains.forEach(fountain -> cacheFountain(seen, fountain));
+                    }
+                    return fountains;
+                }));
+    }
 
+    /**
+     * Asynchronous counterpart of {@link #getFountainById(int)}. Cached fountains complete immediately.
+     *
+     * @param fountainId The unique identifier of the fountain.
+     * @return A future for the {@link FountainDto}.
+     */
+    public CompletableFuture<FountainDto> getFountainByIdAsync(int fountainId) {
+        FountainDto cached = fountainCache.get(fountainId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(copy(cached));
+        }
+
+        long seen = writes.get();
+        return fountainByIdFlights.callAsync(fountainId, () -> RetrofitCalls.enqueue(fountainService.getFountainById(fountainId), "Error fetching fountain: ", "Error retrieving fountain")
+                .thenApply(fountain -> {
+                    cacheFountain(seen, fountainId, fountain);
+                    return fountain;
+                }));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateFountain(int, FountainDto)}.
+     *
+     * @param fountainId The unique identifier of the fountain to be updated.
+     * @param fountain A {@link FountainDto} object containing the updated data.
+     * @return A future for the updated {@link FountainDto}.
+     */
+    public CompletableFuture<FountainDto> updateFountainAsync(int fountainId, FountainDto fountain) {
+        return refreshing(fountainId, RetrofitCalls.enqueue(fountainService.updateFountain(fountainId, fountain),
+                "Error updating fountain: ", "Error updating fountain"));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #createFountain(FountainDto)}.
+     *
+     * @param fountain A {@link FountainDto} object containing the data for the new fountain.
+     * @return A future for the created {@link FountainDto}.
+     */
+    public CompletableFuture<FountainDto> createFountainAsync(FountainDto fountain) {
+        return RetrofitCalls.enqueue(fountainService.createFountain(fountain), "Error creating fountain: ", "Error creating fountain")
+                .thenApply(created -> {
+                    cacheFountain(created);
+                    return created;
+                });
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #addContinuousUseDeviceToFountain(int, int)}.
+     *
+     * @param fountainId The unique identifier of the fountain.
+     * @param deviceId The unique identifier of the continuous use device.
+     * @return A future for the updated {@link FountainDto}.
+     */
+    public CompletableFuture<FountainDto> addContinuousUseDeviceToFountainAsync(int fountainId, int deviceId) {
+        if (fountainId <= 0 || deviceId <= 0) {
+            throw new IllegalArgumentException("The IDs must be higher than zero.");
+        }
+
+        return refreshing(fountainId, RetrofitCalls.enqueue(fountainService.addContinuousUseDeviceToFountain(fountainId, deviceId),
+                "Error associating device: ", "Error associating device: "));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #deleteFountain(int)}.
+     *
+     * @param fountainId The unique identifier of the fountain to be deleted.
+     * @return A future for the upstream result.
+     */
+    public CompletableFuture<Boolean> deleteFountainAsync(int fountainId) {
+        return RetrofitCalls.enqueue(fountainService.deleteFountain(fountainId), "Error deleting fountain: ", "Error deleting fountain")
+                .whenComplete((deleted, e) -> written(fountainId, null));
+    }
+
+    /**
+     * Invalidates the cached fountain once the write completes and caches the fountain it returned.
+     */
+    private CompletableFuture<FountainDto> refreshing(int fountainId, CompletableFuture<FountainDto> write) {
+        return write.whenComplete((updated, e) -> written(fountainId, e == null ? updated : null));
+    }
 }
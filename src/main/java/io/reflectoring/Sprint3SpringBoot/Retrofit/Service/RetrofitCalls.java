@@ -0,0 +1,54 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapts Retrofit calls to {@link CompletableFuture}s using {@link Call#enqueue(Callback)},
+ * so no caller thread is parked while the upstream request is in flight.
+ */
+final class RetrofitCalls {
+
+    private RetrofitCalls() {
+    }
+
+    /**
+     * Enqueues the call and completes the returned future with the response body.
+     * Unsuccessful responses and I/O failures complete it exceptionally with a {@link RetrofitException}.
+     * Cancelling the future cancels the HTTP call.
+     *
+     * @param call           The Retrofit call to run.
+     * @param errorMessage   Message prefix used when the server answers with an error status; the status code is appended.
+     * @param failureMessage Message prefix used when the request fails; the cause is appended.
+     * @return A future for the response body.
+     */
+    static <T> CompletableFuture<T> enqueue(Call<T> call, String errorMessage, String failureMessage) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> c, Response<T> response) {
+                if (response.isSuccessful()) {
+                    future.complete(response.body());
+                } else {
+                    future.completeExceptionally(new RetrofitException(errorMessage + response.code()));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> c, Throwable t) {
+                future.completeExceptionally(new RetrofitException(failureMessage + t));
+            }
+        });
+        future.whenComplete((result, e) -> {
+            if (e instanceof CancellationException) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,106 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reads a JSON array of water analyses token by token and hands each one to a
+ * {@link WaterAnalysisReadingConsumer}. Only the current analysis is held in memory.
+ * Field names and the {@code yyyy-MM-dd} date format are the ones mapped by {@code WaterAnalysisDto};
+ * unknown fields are skipped.
+ */
+final class WaterAnalysisJsonReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private WaterAnalysisJsonReader() {
+    }
+
+    /**
+     * @param in       The response body. It is closed once read.
+     * @param consumer Receives every analysis in array order.
+     * @return The number of analyses read.
+     * @throws IOException If the stream fails or does not hold an array of analyses.
+     */
+    static int read(InputStream in, WaterAnalysisReadingConsumer consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL || token == null) {
+                return 0;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of water analyses");
+            }
+
+            int count = 0;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                readAnalysis(parser, consumer);
+                count++;
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a water analysis object");
+            }
+            return count;
+        }
+    }
+
+    private static void readAnalysis(JsonParser parser, WaterAnalysisReadingConsumer consumer) throws IOException {
+        int id = 0;
+        int fountainId = 0;
+        int deviceId = 0;
+        int epochDay = WaterAnalysisReadingConsumer.NO_DATE;
+        double radonConcentration = 0.0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> id = parser.getValueAsInt();
+                case "fountainId" -> fountainId = parser.getValueAsInt();
+                case "deviceId" -> deviceId = parser.getValueAsInt();
+                case "radonConcentration" -> radonConcentration = parser.getValueAsDouble();
+                case "date" -> epochDay = value == JsonToken.VALUE_STRING ? parseEpochDay(parser) : WaterAnalysisReadingConsumer.NO_DATE;
+                default -> parser.skipChildren();
+            }
+        }
+        consumer.accept(id, fountainId, deviceId, epochDay, radonConcentration);
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd} value straight from the parser's buffer, without creating a String.
+     */
+    private static int parseEpochDay(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        if (parser.getTextLength() != 10 || text[offset + 4] != '-' || text[offset + 7] != '-') {
+            throw new JsonParseException(parser, "Invalid date: " + parser.getText());
+        }
+        try {
+            int year = digits(text, offset, 4);
+            int month = digits(text, offset + 5, 2);
+            int day = digits(text, offset + 8, 2);
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new JsonParseException(parser, "Invalid date: " + parser.getText(), e);
+        }
+    }
+
+    private static int digits(char[] text, int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,23 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+/**
+ * Receives water analyses one at a time as primitive fields, so large histories can be
+ * aggregated without building a {@code WaterAnalysisDto} per reading.
+ */
+@FunctionalInterface
+public interface WaterAnalysisReadingConsumer {
+
+    /**
+     * Value of {@code epochDay} when the analysis has no date.
+     */
+    int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * @param id                 The unique identifier of the water analysis.
+     * @param fountainId         The fountain the sample was taken from.
+     * @param deviceId           The device used for the analysis.
+     * @param epochDay           The analysis date as {@link java.time.LocalDate#toEpochDay()}, or {@link #NO_DATE}.
+     * @param radonConcentration The radon concentration measured.
+     */
+    void accept(int id, int fountainId, int deviceId, int epochDay, double radonConcentration);
+}
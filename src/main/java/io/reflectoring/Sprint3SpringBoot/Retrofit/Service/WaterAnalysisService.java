@@ -1,35 +1,57 @@
 package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
 
-import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesWaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Cache.SingleFlight;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
 import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IWaterAnalysisService;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import okhttp3.ResponseBody;
 import retrofit2.Response;
-import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesFountainsDto;
 
 
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service class for managing water analyses.
  * This class interacts with the Retrofit API client to perform CRUD operations.
+ * Successful creates and updates publish a {@link WaterAnalysisSavedEvent}. The asynchronous variants publish it
+ * from a thread of their own rather than the OkHttp dispatcher thread that completed the call, since the listeners
+ * write to the database.
+ * Identical reads issued while one is already in flight wait for it instead of calling the API again.
  */
 @Service
 public class WaterAnalysisService {
 
+    private static final String ALL = "all";
+
     private final IWaterAnalysisService waterAnalysisService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ExecutorService listenerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SingleFlight<Integer, WaterAnalysisDto> analysisByIdFlights = new SingleFlight<>();
+
+    private final SingleFlight<String, List<WaterAnalysisDto>> allAnalysesFlights = new SingleFlight<>();
+
     /**
      * Constructor for dependency injection.
      *
      * @param waterAnalysisService The Retrofit API client for water analyses.
+     * @param eventPublisher       The publisher used to announce saved water analyses.
      */
     @Autowired
-    public WaterAnalysisService(IWaterAnalysisService waterAnalysisService) {
+    public WaterAnalysisService(IWaterAnalysisService waterAnalysisService, ApplicationEventPublisher eventPublisher) {
         this.waterAnalysisService = waterAnalysisService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -38,13 +60,39 @@ public class WaterAnalysisService {
      * @return A list of {@link WaterAnalysisDto} objects representing all water analyses.
      */
     public List<WaterAnalysisDto> getAllWaterAnalyses() {
+        return allAnalysesFlights.call(ALL, () -> {
+            try {
+                Response<List<WaterAnalysisDto>> response = waterAnalysisService.getAllWaterAnalyses().execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error fetching water analyses: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Failed to fetch water analyses" + e);
+            }
+        });
+    }
+
+    /**
+     * Streams all water analyses from the server to the consumer, one analysis at a time.
+     * Unlike {@link #getAllWaterAnalyses()}, the history is never held in memory as a list.
+     *
+     * @param consumer Receives the fields of every analysis.
+     * @return The number of analyses read.
+     */
+    public int streamAllWaterAnalyses(WaterAnalysisReadingConsumer consumer) {
         try {
-            Response<List<WaterAnalysisDto>> response = waterAnalysisService.getAllWaterAnalyses().execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
+            Response<ResponseBody> response = waterAnalysisService.streamAllWaterAnalyses().execute();
+            if (!response.isSuccessful()) {
+                if (response.errorBody() != null) {
+                    response.errorBody().close();
+                }
                 throw new RetrofitException("Error fetching water analyses: " + response.code());
             }
+            try (ResponseBody body = response.body()) {
+                return body == null ? 0 : WaterAnalysisJsonReader.read(body.byteStream(), consumer);
+            }
         } catch (IOException e) {
             throw new RetrofitException("Failed to fetch water analyses" + e);
         }
@@ -57,16 +105,18 @@ public class WaterAnalysisService {
      * @return A {@link WaterAnalysisDto} representing the requested water analysis.
      */
     public WaterAnalysisDto getWaterAnalysisById(int id) {
-        try {
-            Response<WaterAnalysisDto> response = waterAnalysisService.getWaterAnalysisById(id).execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error fetching water analysis with ID: " + id + ", Status Code: " + response.code());
+        return analysisByIdFlights.call(id, () -> {
+            try {
+                Response<WaterAnalysisDto> response = waterAnalysisService.getWaterAnalysisById(id).execute();
+                if (response.isSuccessful()) {
+                    return response.body();
+                } else {
+                    throw new RetrofitException("Error fetching water analysis with ID: " + id + ", Status Code: " + response.code());
+                }
+            } catch (IOException e) {
+                throw new RetrofitException("Failed to fetch water analysis with ID: " + id + e);
             }
-        } catch (IOException e) {
-            throw new RetrofitException("Failed to fetch water analysis with ID: " + id + e);
-        }
+        });
     }
 
     /**
@@ -80,6 +130,7 @@ public class WaterAnalysisService {
         try {
             Response<WaterAnalysisDto> response = waterAnalysisService.updateWaterAnalysis(id, waterAnalysis).execute();
             if (response.isSuccessful()) {
+                publishSaved(response.body(), false);
                 return response.body();
             } else {
                 throw new RetrofitException("Error updating water analysis with ID: " + id + ", Status Code: " + response.code());
@@ -99,6 +150,7 @@ public class WaterAnalysisService {
         try {
             Response<WaterAnalysisDto> response = waterAnalysisService.createWaterAnalysis(waterAnalysis).execute();
             if (response.isSuccessful()) {
+                publishSaved(response.body(), true);
                 return response.body();
             } else {
                 throw new RetrofitException("Error creating water analysis, Status Code: " + response.code());
@@ -109,23 +161,66 @@ public class WaterAnalysisService {
     }
 
     /**
-     * Retrieves aggregated analysis data for user favorite fountains.
+     * Asynchronous counterpart of {@link #getAllWaterAnalyses()}.
      *
-     * @param favoritesDto DTO containing a list of favorite fountain IDs.
-     * @return Aggregated water analysis data.
+     * @return A future for the list of {@link WaterAnalysisDto}.
      */
-    public UserFavoritesWaterAnalysisDto getFavoriteFountainsAnalysis(UserFavoritesFountainsDto favoritesDto) {
-        try {
-            Response<UserFavoritesWaterAnalysisDto> response =
-                    waterAnalysisService.getFavoriteFountainsAnalysis(favoritesDto).execute();
-            if (response.isSuccessful()) {
-                return response.body();
-            } else {
-                throw new RetrofitException("Error fetching favorite fountains analysis, Status Code: " + response.code());
-            }
-        } catch (IOException e) {
-            throw new RetrofitException("Failed to fetch favorite fountains analysis: " + e);
+    public CompletableFuture<List<WaterAnalysisDto>> getAllWaterAnalysesAsync() {
+        return allAnalysesFlights.callAsync(ALL, () -> RetrofitCalls.enqueue(waterAnalysisService.getAllWaterAnalyses(),
+                "Error fetching water analyses: ", "Failed to fetch water analyses"));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #getWaterAnalysisById(int)}.
+     *
+     * @param id The unique identifier of the water analysis.
+     * @return A future for the {@link WaterAnalysisDto}.
+     */
+    public CompletableFuture<WaterAnalysisDto> getWaterAnalysisByIdAsync(int id) {
+        return analysisByIdFlights.callAsync(id, () -> RetrofitCalls.enqueue(waterAnalysisService.getWaterAnalysisById(id),
+                "Error fetching water analysis with ID: " + id + ", Status Code: ", "Failed to fetch water analysis with ID: " + id));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateWaterAnalysis(int, WaterAnalysisDto)}.
+     *
+     * @param id            The unique identifier of the water analysis.
+     * @param waterAnalysis The updated {@link WaterAnalysisDto} data.
+     * @return A future for the updated {@link WaterAnalysisDto}.
+     */
+    public CompletableFuture<WaterAnalysisDto> updateWaterAnalysisAsync(int id, WaterAnalysisDto waterAnalysis) {
+        return RetrofitCalls.enqueue(waterAnalysisService.updateWaterAnalysis(id, waterAnalysis),
+                        "Error updating water analysis with ID: " + id + ", Status Code: ", "Failed to update water analysis with ID: " + id)
+                .thenApplyAsync(updated -> {
+                    publishSaved(updated, false);
+                    return updated;
+                }, listenerExecutor);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #createWaterAnalysis(WaterAnalysisDto)}.
+     *
+     * @param waterAnalysis The {@link WaterAnalysisDto} object to be created.
+     * @return A future for the created {@link WaterAnalysisDto}.
+     */
+    public CompletableFuture<WaterAnalysisDto> createWaterAnalysisAsync(WaterAnalysisDto waterAnalysis) {
+        return RetrofitCalls.enqueue(waterAnalysisService.createWaterAnalysis(waterAnalysis),
+                        "Error creating water analysis, Status Code: ", "Failed to create water analysis")
+                .thenApplyAsync(created -> {
+                    publishSaved(created, true);
+                    return created;
+                }, listenerExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Lets saves already received finish updating the listeners
+        listenerExecutor.shutdown();
+    }
+
+    private void publishSaved(WaterAnalysisDto waterAnalysis, boolean created) {
+        if (waterAnalysis != null) {
+            eventPublisher.publishEvent(new WaterAnalysisSavedEvent(waterAnalysis, created));
         }
     }
 }
-
@@ -1,11 +1,15 @@
 package io.reflectoring.Sprint3SpringBoot.Services;
 
+import io.reflectoring.Sprint3SpringBoot.Cache.TtlCache;
+import io.reflectoring.Sprint3SpringBoot.JWT.AuthenticatedUser;
 import io.reflectoring.Sprint3SpringBoot.Models.User;
 import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
-import java.util.Collections;
+import java.time.Duration;
 
 @Service
 public class CustomUserDetailsService  implements UserDetailsService {
@@ -13,6 +17,38 @@ public class CustomUserDetailsService  implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${security.user-details-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${security.user-details-cache.ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    private TtlCache<String, UserDetails> userDetailsCache;
+
+    @PostConstruct
+    public void init() {
+        this.userDetailsCache = new TtlCache<>(cacheMaxSize, Duration.ofMillis(cacheTtlMs));
+    }
+
+    /**
+     * Loads a user for request authentication, reusing a lookup made in the last few seconds.
+     * Sign-in keeps using {@link #loadUserByUsername(String)} so passwords are always checked against the database.
+     *
+     * @param email The email of the user.
+     * @return The {@link UserDetails} of the user.
+     * @throws UsernameNotFoundException If no user has that email.
+     */
+    public UserDetails loadUserByUsernameCached(String email) throws UsernameNotFoundException {
+        UserDetails cached = userDetailsCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        UserDetails userDetails = loadUserByUsername(email);
+        userDetailsCache.put(email, userDetails);
+        return userDetails;
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findUserByEmail(email);
@@ -21,10 +57,11 @@ public class CustomUserDetailsService  implements UserDetailsService {
             throw new UsernameNotFoundException("User Not Found with email: " + email);
         }
 
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
                 user.getEmail(),
                 user.getPassword(),
-                Collections.emptyList()
+                user.getId(),
+                user.getRole()
         );
     }
 }
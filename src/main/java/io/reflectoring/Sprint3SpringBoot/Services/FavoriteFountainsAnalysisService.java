@@ -0,0 +1,142 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Cache.TtlCache;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesFountainsDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesWaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.FountainStatisticsChangedEvent;
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers the favourite fountains analysis locally instead of asking the upstream API.
+ * The figures come from the {@link FountainStatistics} rows and the fountain names from the
+ * {@link FountainService} cache. Results are memoised per favourite set, ignoring order and duplicates,
+ * and a memoised result is dropped once the {@link FountainStatisticsService} reports that the row of one of
+ * its fountains has changed, which happens only after the row has been written.
+ */
+@Service
+public class FavoriteFountainsAnalysisService {
+
+    private final FountainStatisticsService fountainStatisticsService;
+    private final FountainService fountainService;
+
+    private final TtlCache<List<Integer>, UserFavoritesWaterAnalysisDto> analysisCache;
+
+    // Bumped on every change of the statistics view, so a result computed across an invalidation is not memoised
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param fountainStatisticsService The per-fountain radon aggregates.
+     * @param fountainService           The service used to look up fountain names.
+     * @param cacheMaxSize              The maximum number of favourite sets memoised.
+     * @param cacheTtlMs                How long, in milliseconds, a memoised result stays valid.
+     * @param meterRegistry             The registry the cache counters are published to, tagged {@code cache=favorites.analysis}.
+     */
+    @Autowired
+    public FavoriteFountainsAnalysisService(FountainStatisticsService fountainStatisticsService,
+                                            FountainService fountainService,
+                                            @Value("${favorites.analysis-cache.max-size:1000}") int cacheMaxSize,
+                                            @Value("${favorites.analysis-cache.ttl-ms:60000}") long cacheTtlMs,
+                                            MeterRegistry meterRegistry) {
+        this.fountainStatisticsService = fountainStatisticsService;
+        this.fountainService = fountainService;
+        this.analysisCache = new TtlCache<>(cacheMaxSize, Duration.ofMillis(cacheTtlMs));
+        this.analysisCache.bindTo(meterRegistry, "favorites.analysis");
+    }
+
+    /**
+     * Aggregates the analyses of a user's favourite fountains.
+     *
+     * @param favoritesDto DTO containing a list of favorite fountain IDs.
+     * @return Aggregated water analysis data; zero tests and no fountain names if none of the fountains has analyses.
+     * @throws IllegalArgumentException If the favourite list is missing.
+     */
+    public UserFavoritesWaterAnalysisDto getFavoriteFountainsAnalysis(UserFavoritesFountainsDto favoritesDto) {
+        if (favoritesDto == null || favoritesDto.getFavoriteFountainIds() == null) {
+            throw new IllegalArgumentException("Favorite fountain ids are required.");
+        }
+
+        List<Integer> key = normalize(favoritesDto.getFavoriteFountainIds());
+        UserFavoritesWaterAnalysisDto cached = analysisCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long seen = invalidations.get();
+        UserFavoritesWaterAnalysisDto analysis = analyze(key);
+        if (invalidations.get() == seen) {
+            analysisCache.put(key, analysis);
+        }
+        return analysis;
+    }
+
+    @EventListener
+    public void onFountainStatisticsChanged(FountainStatisticsChangedEvent event) {
+        invalidations.incrementAndGet();
+        if (event.isAll()) {
+            analysisCache.invalidateAll();
+            return;
+        }
+        int fountainId = event.getFountainId();
+        analysisCache.invalidateIf((ids, result) -> Collections.binarySearch(ids, fountainId) >= 0);
+    }
+
+    private UserFavoritesWaterAnalysisDto analyze(List<Integer> fountainIds) {
+        Map<Integer, FountainStatistics> statistics = fountainStatisticsService.getFountainStatistics(fountainIds);
+
+        int totalTests = 0;
+        int drinkableTests = 0;
+        FountainStatistics lowest = null;
+        FountainStatistics highest = null;
+        for (Integer fountainId : fountainIds) {
+            FountainStatistics fountain = statistics.get(fountainId);
+            if (fountain == null || fountain.isEmpty()) {
+                continue;
+            }
+            totalTests += fountain.totalAnalysis;
+            drinkableTests += fountain.drinkableAnalysis;
+            if (lowest == null || fountain.minRadonLevel < lowest.minRadonLevel) {
+                lowest = fountain;
+            }
+            if (highest == null || fountain.maxRadonLevel > highest.maxRadonLevel) {
+                highest = fountain;
+            }
+        }
+
+        UserFavoritesWaterAnalysisDto analysis = new UserFavoritesWaterAnalysisDto();
+        analysis.setTotalTests(totalTests);
+        if (totalTests == 0) {
+            return analysis;
+        }
+
+        Map<Integer, String> names = new HashMap<>();
+        for (FountainDto fountain : fountainService.getFountainsByIds(List.of(lowest.fountainId, highest.fountainId))) {
+            names.put(fountain.getId(), fountain.getDescription());
+        }
+        analysis.setLowestRadonValue(lowest.minRadonLevel);
+        analysis.setLowestRadonFountain(names.get(lowest.fountainId));
+        analysis.setHighestRadonValue(highest.maxRadonLevel);
+        analysis.setHighestRadonFountain(names.get(highest.fountainId));
+        analysis.setDrinkablePercentage(drinkableTests * 100.0 / totalTests);
+        return analysis;
+    }
+
+    /**
+     * @return the distinct ids in ascending order, so that equal sets share a cache entry.
+     */
+    private static List<Integer> normalize(Collection<Integer> fountainIds) {
+        return List.copyOf(new TreeSet<>(fountainIds.stream().filter(Objects::nonNull).toList()));
+    }
+}
@@ -0,0 +1,309 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.FountainStatisticsChangedEvent;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
+import io.reflectoring.Sprint3SpringBoot.Repositories.FountainStatisticsRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisReadingConsumer;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the {@link FountainStatistics} table, a per-fountain materialised view of the water analyses.
+ *
+ * <p>Created analyses are added to their fountain's row as they pass through this backend. An updated analysis
+ * is taken out of its previous fountain's counts and added to its new one; its previous reading comes from the
+ * {@link RadonColumnStore}, which every rebuild loads from the same stream. Only when the updated reading may have
+ * been a row's minimum, maximum or last reading are those recomputed, from that fountain's readings in the store.
+ * Saves wait for one another; only a save that arrives while a rebuild is streaming, which may or may not have
+ * read it, marks the view stale. A stale view, or one older than {@code statistics.fountain-view.max-age-ms},
+ * is rebuilt from the full analysis history on the next read; the first read after startup always rebuilds,
+ * since analyses may have been written directly to the upstream API in the meantime.</p>
+ *
+ * <p>A {@link FountainStatisticsChangedEvent} is published once a row has been written, a rebuild has finished,
+ * or the view has been marked stale.</p>
+ */
+@Service
+public class FountainStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FountainStatisticsService.class);
+
+    private final FountainStatisticsRepository fountainStatisticsRepository;
+    private final WaterAnalysisService waterAnalysisService;
+    private final RadonColumnStore radonColumnStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final double drinkableLimit;
+    private final long maxAgeNanos;
+
+    // A lock rather than synchronized methods: rebuilds do network and database I/O
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // The view is stale while builtGeneration lags behind generation
+    private final AtomicLong generation = new AtomicLong(1);
+    private volatile long builtGeneration;
+    private volatile long builtAt;
+
+    // Set while a rebuild streams the history; rebuildsStarted tells a waiting save that a rebuild ran after it
+    private volatile boolean rebuilding;
+    private final AtomicLong rebuildsStarted = new AtomicLong();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param fountainStatisticsRepository The repository of the per-fountain rows.
+     * @param waterAnalysisService         The service used to stream the analysis history on rebuilds.
+     * @param radonColumnStore             The store loaded on rebuilds and read for the previous reading of updates.
+     * @param eventPublisher               The publisher used to announce changes of the view.
+     * @param drinkableLimit               The highest radon concentration, in Bq/L, still considered drinkable
+     *                                     ({@code radon.drinkable-limit}). The upstream only reports drinkability
+     *                                     per fountain, so this must be kept equal to the limit it applies.
+     * @param maxAgeMs                     How long, in milliseconds, the view is trusted before it is rebuilt.
+     *                                     Zero or less means only updates make it stale.
+     */
+    @Autowired
+    public FountainStatisticsService(FountainStatisticsRepository fountainStatisticsRepository,
+                                     WaterAnalysisService waterAnalysisService,
+                                     RadonColumnStore radonColumnStore,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${radon.drinkable-limit:100}") double drinkableLimit,
+                                     @Value("${statistics.fountain-view.max-age-ms:3600000}") long maxAgeMs) {
+        this.fountainStatisticsRepository = fountainStatisticsRepository;
+        this.waterAnalysisService = waterAnalysisService;
+        this.radonColumnStore = radonColumnStore;
+        this.eventPublisher = eventPublisher;
+        this.drinkableLimit = drinkableLimit;
+        this.maxAgeNanos = maxAgeMs * 1_000_000L;
+    }
+
+    /**
+     * Returns the aggregate of a fountain.
+     *
+     * @param fountainId The fountain id.
+     * @return The fountain's {@link FountainStatistics}, or null if it has no analyses.
+     */
+    public FountainStatistics getFountainStatistics(int fountainId) {
+        refreshIfNeeded();
+        return fountainStatisticsRepository.findById(fountainId).orElse(null);
+    }
+
+    /**
+     * Returns the aggregates of several fountains in one query.
+     *
+     * @param fountainIds The fountain ids.
+     * @return The {@link FountainStatistics} of every given fountain that has analyses, by fountain id.
+     */
+    public Map<Integer, FountainStatistics> getFountainStatistics(Collection<Integer> fountainIds) {
+        refreshIfNeeded();
+        Map<Integer, FountainStatistics> byFountain = new HashMap<>();
+        for (FountainStatistics statistics : fountainStatisticsRepository.findAllById(new HashSet<>(fountainIds))) {
+            byFountain.put(statistics.fountainId, statistics);
+        }
+        return byFountain;
+    }
+
+    /**
+     * Classifies a single analysis. The default limit of 100 Bq/L is the radon parametric value of
+     * Council Directive 2013/51/Euratom.
+     *
+     * @param radon A radon concentration.
+     * @return true if the concentration is at or below the drinkable limit.
+     */
+    public boolean isDrinkable(double radon) {
+        return radon <= drinkableLimit;
+    }
+
+    // Runs before RadonColumnStore records the analysis, so the store still holds an updated analysis' previous reading
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onWaterAnalysisSaved(WaterAnalysisSavedEvent event) {
+        WaterAnalysisDto analysis = event.getWaterAnalysis();
+        if (analysis == null) {
+            return;
+        }
+        long rebuildsBefore = rebuildsStarted.get();
+        // A rebuild already streaming may or may not have read this analysis, so rather than risk counting it twice
+        // or not at all the view is marked stale and rebuilt on the next read
+        if (rebuilding) {
+            generation.incrementAndGet();
+            eventPublisher.publishEvent(FountainStatisticsChangedEvent.all());
+            return;
+        }
+
+        Set<Integer> changed;
+        lock.lock();
+        try {
+            // A rebuild that started after the analysis was saved has read it already; a stale view will
+            if (rebuildsStarted.get() != rebuildsBefore || isStale()) {
+                return;
+            }
+            changed = event.isCreated() ? addCreated(analysis) : applyUpdate(analysis);
+            if (changed == null) {
+                generation.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            // The analysis is already saved upstream; failing here would turn that into an error for the caller,
+            // whose retry would create a duplicate. The next read rebuilds the view instead.
+            logger.warn("Could not apply water analysis {} to the statistics of fountain {}: {}", analysis.id, analysis.fountainId, e.getMessage());
+            generation.incrementAndGet();
+            changed = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (changed == null) {
+            eventPublisher.publishEvent(FountainStatisticsChangedEvent.all());
+            return;
+        }
+        for (Integer fountainId : changed) {
+            eventPublisher.publishEvent(FountainStatisticsChangedEvent.of(fountainId));
+        }
+    }
+
+    private Set<Integer> addCreated(WaterAnalysisDto analysis) {
+        FountainStatistics statistics = fountainStatisticsRepository.findById(analysis.fountainId)
+                .orElseGet(() -> new FountainStatistics(analysis.fountainId));
+        statistics.add(analysis.id, analysis.getDate(), analysis.getRadonConcentration(), isDrinkable(analysis.getRadonConcentration()));
+        fountainStatisticsRepository.save(statistics);
+        return Set.of(analysis.fountainId);
+    }
+
+    /**
+     * Moves an updated analysis from its previous reading to its new one.
+     *
+     * @return the fountains whose rows changed, or null if the update cannot be applied and the view must be rebuilt.
+     */
+    private Set<Integer> applyUpdate(WaterAnalysisDto analysis) {
+        WaterAnalysisDto previous = radonColumnStore.find(analysis.id);
+        if (previous == null) {
+            return null;
+        }
+        FountainStatistics from = fountainStatisticsRepository.findById(previous.fountainId).orElse(null);
+        if (from == null) {
+            return null;
+        }
+        FountainStatistics to = previous.fountainId == analysis.fountainId ? from
+                : fountainStatisticsRepository.findById(analysis.fountainId).orElseGet(() -> new FountainStatistics(analysis.fountainId));
+
+        boolean recompute = from.remove(previous.id, previous.getRadonConcentration(), isDrinkable(previous.getRadonConcentration()));
+        to.add(analysis.id, analysis.getDate(), analysis.getRadonConcentration(), isDrinkable(analysis.getRadonConcentration()));
+        if (recompute && !recomputeExtremes(from, analysis)) {
+            return null;
+        }
+
+        if (from.isEmpty()) {
+            fountainStatisticsRepository.deleteById(from.fountainId);
+        } else {
+            fountainStatisticsRepository.save(from);
+        }
+        if (to != from) {
+            fountainStatisticsRepository.save(to);
+        }
+        return new HashSet<>(List.of(from.fountainId, to.fountainId));
+    }
+
+    /**
+     * Recomputes a row's minimum, maximum and last reading from the fountain's readings in the store,
+     * with the updated analysis in place of its previous reading.
+     *
+     * @return false if the store does not hold exactly the readings the row counts, so the row cannot be trusted.
+     */
+    private boolean recomputeExtremes(FountainStatistics row, WaterAnalysisDto updated) {
+        row.resetExtremes();
+        int[] readings = {0};
+        radonColumnStore.forEachReadingOfFountain(row.fountainId, (id, fountainId, deviceId, epochDay, radon) -> {
+            if (id != updated.id) {
+                row.offer(id, epochDay == WaterAnalysisReadingConsumer.NO_DATE ? null : LocalDate.ofEpochDay(epochDay), radon);
+                readings[0]++;
+            }
+        });
+        if (updated.fountainId == row.fountainId) {
+            row.offer(updated.id, updated.getDate(), updated.getRadonConcentration());
+            readings[0]++;
+        }
+        return readings[0] == row.totalAnalysis;
+    }
+
+    /**
+     * Rebuilds every row from the full analysis history.
+     */
+    public void rebuild() {
+        lock.lock();
+        try {
+            rebuildLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshIfNeeded() {
+        if (!needsRebuild()) {
+            return;
+        }
+        lock.lock();
+        try {
+            // Another reader may have rebuilt the view while this one waited
+            if (needsRebuild()) {
+                rebuildLocked();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void rebuildLocked() {
+        long building = generation.get();
+        rebuildsStarted.incrementAndGet();
+        rebuilding = true;
+        try {
+            Map<Integer, FountainStatistics> byFountain = new HashMap<>();
+            // One stream feeds both, so the store holds the readings this view was built from
+            radonColumnStore.load(store -> waterAnalysisService.streamAllWaterAnalyses((id, fountainId, deviceId, epochDay, radon) -> {
+                store.accept(id, fountainId, deviceId, epochDay, radon);
+                byFountain.computeIfAbsent(fountainId, FountainStatistics::new)
+                        .add(id, epochDay == WaterAnalysisReadingConsumer.NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                                radon, isDrinkable(radon));
+            }));
+
+            // Rows are overwritten in place and only fountains without analyses are deleted, so a reader that does
+            // not wait for the lock never sees the table empty halfway through a rebuild
+            List<Integer> gone = new ArrayList<>();
+            for (Integer fountainId : fountainStatisticsRepository.findAllFountainIds()) {
+                if (!byFountain.containsKey(fountainId)) {
+                    gone.add(fountainId);
+                }
+            }
+            fountainStatisticsRepository.saveAll(byFountain.values());
+            if (!gone.isEmpty()) {
+                fountainStatisticsRepository.deleteAllByIdInBatch(gone);
+            }
+            builtGeneration = building;
+            builtAt = System.nanoTime();
+        } finally {
+            rebuilding = false;
+        }
+        eventPublisher.publishEvent(FountainStatisticsChangedEvent.all());
+    }
+
+    private boolean isStale() {
+        return builtGeneration != generation.get();
+    }
+
+    private boolean needsRebuild() {
+        return isStale() || (maxAgeNanos > 0 && System.nanoTime() - builtAt > maxAgeNanos);
+    }
+}
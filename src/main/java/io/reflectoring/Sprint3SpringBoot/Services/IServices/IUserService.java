@@ -1,5 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Services.IServices;
 
+import io.reflectoring.Sprint3SpringBoot.Dto.FavouritesPageDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
 import io.reflectoring.Sprint3SpringBoot.Enums.Role;
@@ -53,6 +54,10 @@ public interface IUserService {
 
     List<FountainDto> getXFavourites(int id, int i);
 
+    List<Integer> getUserFavouriteIds(int id);
+
+    FavouritesPageDto getFavouritesPage(int id, Integer cursor, int size);
+
     boolean isFountainFavorite(int idUser, int idFountain);
 
 }
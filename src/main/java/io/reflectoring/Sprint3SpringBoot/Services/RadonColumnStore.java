@@ -0,0 +1,670 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisReadingConsumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of every dated radon reading, stored as parallel primitive columns
+ * (radon, epoch day, fountain id, device id, analysis id) sorted by day.
+ * A reading costs 24 bytes instead of a {@link WaterAnalysisDto} plus its {@link LocalDate},
+ * and 8 more for the id index.
+ * Date-range queries binary-search the day column and reduce a contiguous slice of the radon column
+ * with {@link RadonReducer}, in parallel for large ranges.
+ *
+ * <p>The store is loaded once from the full analysis history and then kept up to date from
+ * {@link WaterAnalysisSavedEvent}s. Analyses written directly to the upstream API are not seen here,
+ * so the store reports itself as stale after {@code statistics.column-store.max-age-ms} and should be loaded again.</p>
+ *
+ * <p>Saved analyses never shift the sorted columns: they are appended to a small per-day segment, and the
+ * reading they replace is found through the id index and marked removed. Queries combine both.
+ * Once the segments and removed readings outgrow an eighth of the columns they are merged into new columns,
+ * so a write costs amortised O(1) plus an O(log n) id lookup.</p>
+ */
+@Component
+public class RadonColumnStore {
+
+    // Below this many pending writes the columns are never rebuilt, however small they are
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long maxAgeNanos;
+
+    private Columns columns = Columns.indexed(new Columns(0));
+
+    // Readings saved since the columns were built, by day and by analysis id
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final Map<Integer, Segment> segmentById = new HashMap<>();
+    private int segmentedSize;
+
+    private boolean loaded;
+
+    private long loadedAt;
+
+    // Loads are numbered when they start; one that finishes after a newer load has been swapped in is dropped
+    private long startedLoads;
+    private long swappedLoad;
+    private int loadsInProgress;
+
+    // Readings recorded while a load streams, replayed on top of its snapshot, tagged with the newest load started before them
+    private final List<PendingReading> pending = new ArrayList<>();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param maxAgeMs How long, in milliseconds, a loaded store is trusted before {@link #needsLoad()} reports true.
+     *                 Zero or less means it never goes stale.
+     */
+    @Autowired
+    public RadonColumnStore(@Value("${statistics.column-store.max-age-ms:3600000}") long maxAgeMs) {
+        this.maxAgeNanos = maxAgeMs * 1_000_000L;
+    }
+
+    /**
+     * @return true if the store was never loaded or the last load is older than the configured max age.
+     */
+    public boolean needsLoad() {
+        lock.readLock().lock();
+        try {
+            return !loaded || (maxAgeNanos > 0 && System.nanoTime() - loadedAt > maxAgeNanos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the content of the store with the given analyses.
+     *
+     * @param analyses The full water analysis history.
+     */
+    public void load(List<WaterAnalysisDto> analyses) {
+        load(consumer -> analyses.forEach(a -> consumer.accept(a.id, a.fountainId, a.deviceId,
+                a.getDate() == null ? WaterAnalysisReadingConsumer.NO_DATE : (int) a.getDate().toEpochDay(),
+                a.getRadonConcentration())));
+    }
+
+    /**
+     * Replaces the content of the store with a stream of analyses. The new columns are built and sorted
+     * without holding the lock and swapped in at the end, so queries keep running during a load.
+     * Analyses recorded while the history streams are replayed on top of it after the swap, so a snapshot
+     * taken before they were saved does not drop them. Analyses without a date are skipped.
+     *
+     * @param source Pushes the full water analysis history into the given consumer.
+     */
+    public void load(Consumer<WaterAnalysisReadingConsumer> source) {
+        long generation;
+        lock.writeLock().lock();
+        try {
+            generation = ++startedLoads;
+            loadsInProgress++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Columns sorted = null;
+        try {
+            Columns loading = new Columns(1024);
+            source.accept((id, fountainId, deviceId, epochDay, radon) -> {
+                if (epochDay != WaterAnalysisReadingConsumer.NO_DATE) {
+                    loading.append(id, fountainId, deviceId, epochDay, radon);
+                }
+            });
+            sorted = Columns.indexed(loading.sortedByDay());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                loadsInProgress--;
+                if (sorted != null && generation > swappedLoad) {
+                    swap(sorted, generation);
+                }
+                if (loadsInProgress == 0) {
+                    pending.clear();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Publishes freshly loaded columns and replays the readings recorded since their load started.
+     * Called with the write lock held.
+     */
+    private void swap(Columns sorted, long generation) {
+        columns = sorted;
+        segments.clear();
+        segmentById.clear();
+        segmentedSize = 0;
+        swappedLoad = generation;
+        loaded = true;
+        loadedAt = System.nanoTime();
+
+        for (PendingReading reading : pending) {
+            if (reading.generation >= generation) {
+                // Replaces the snapshot's reading of the same analysis, if it has one
+                recordLocked(reading.id, reading.fountainId, reading.deviceId, reading.day, reading.radon);
+            }
+        }
+        // Loads that can still be swapped in started after this one, so older readings are not needed again
+        pending.removeIf(reading -> reading.generation <= generation);
+    }
+
+    @EventListener
+    public void onWaterAnalysisSaved(WaterAnalysisSavedEvent event) {
+        record(event.getWaterAnalysis());
+    }
+
+    /**
+     * Adds an analysis at its day, replacing the previous reading if an analysis with the same id is stored.
+     *
+     * @param analysis The created or updated analysis.
+     */
+    public void record(WaterAnalysisDto analysis) {
+        if (analysis == null || analysis.getDate() == null) {
+            return;
+        }
+
+        int day = (int) analysis.getDate().toEpochDay();
+        lock.writeLock().lock();
+        try {
+            recordLocked(analysis.id, analysis.fountainId, analysis.deviceId, day, analysis.getRadonConcentration());
+            if (loadsInProgress > 0) {
+                pending.add(new PendingReading(startedLoads, analysis.id, analysis.fountainId, analysis.deviceId, day,
+                        analysis.getRadonConcentration()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recordLocked(int analysisId, int fountainId, int deviceId, int day, double radon) {
+        if (analysisId > 0) {
+            remove(analysisId);
+        }
+        Segment segment = segments.computeIfAbsent(day, Segment::new);
+        segment.append(analysisId, fountainId, deviceId, radon);
+        if (analysisId > 0) {
+            segmentById.put(analysisId, segment);
+        }
+        segmentedSize++;
+
+        if (segmentedSize + columns.removedCount > Math.max(MIN_COMPACTION_THRESHOLD, columns.size >> 3)) {
+            compact();
+        }
+    }
+
+    /**
+     * Summarises the readings between two days, both inclusive.
+     *
+     * @param from The first day, or null for no lower bound.
+     * @param to   The last day, or null for no upper bound.
+     * @return The {@link RadonSummary} of the range, empty if there are no readings.
+     */
+    public RadonSummary summarize(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return summarizeLocked(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Summarises the readings between two days, both inclusive, and adds the same readings to a sketch.
+     * Both are computed under one read lock, so a concurrent write cannot make them disagree.
+     *
+     * @param from   The first day, or null for no lower bound.
+     * @param to     The last day, or null for no upper bound.
+     * @param sketch The sketch the readings are added to.
+     * @return The {@link RadonSummary} of the range, empty if there are no readings.
+     */
+    public RadonSummary summarize(LocalDate from, LocalDate to, RadonSketch sketch) {
+        lock.readLock().lock();
+        try {
+            addToSketchLocked(from, to, sketch);
+            return summarizeLocked(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds a quantile sketch of the readings between two days, both inclusive.
+     *
+     * @param from The first day, or null for no lower bound.
+     * @param to   The last day, or null for no upper bound.
+     * @return A {@link RadonSketch} of the range, empty if there are no readings.
+     */
+    public RadonSketch sketch(LocalDate from, LocalDate to) {
+        RadonSketch sketch = new RadonSketch();
+        lock.readLock().lock();
+        try {
+            addToSketchLocked(from, to, sketch);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return sketch;
+    }
+
+    private RadonSummary summarizeLocked(LocalDate from, LocalDate to) {
+        Columns c = columns;
+        int[] range = c.range(from, to);
+        RadonSummary summary = c.summarize(range[0], range[1]);
+        for (Segment segment : segmentsBetween(from, to)) {
+            summary = summary.merge(segment.summarize());
+        }
+        return summary;
+    }
+
+    private void addToSketchLocked(LocalDate from, LocalDate to, RadonSketch sketch) {
+        Columns c = columns;
+        int[] range = c.range(from, to);
+        for (int i = range[0]; i < range[1]; i++) {
+            if (!c.isRemoved(i)) {
+                sketch.add(c.radon[i]);
+            }
+        }
+        for (Segment segment : segmentsBetween(from, to)) {
+            for (int i = 0; i < segment.size; i++) {
+                sketch.add(segment.radon[i]);
+            }
+        }
+    }
+
+    /**
+     * Looks up the stored reading of an analysis.
+     *
+     * @param analysisId The analysis id.
+     * @return The reading as a {@link WaterAnalysisDto}, or null if the store was never loaded or does not hold it.
+     */
+    public WaterAnalysisDto find(int analysisId) {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return null;
+            }
+            Segment segment = segmentById.get(analysisId);
+            if (segment != null) {
+                int i = segment.indexOf(analysisId);
+                return toAnalysis(analysisId, segment.fountainId[i], segment.deviceId[i], segment.day, segment.radon[i]);
+            }
+            Columns c = columns;
+            int i = c.indexOf(analysisId);
+            return i < 0 ? null : toAnalysis(analysisId, c.fountainId[i], c.deviceId[i], c.epochDay[i], c.radon[i]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes every stored reading of a fountain to a consumer, under the read lock.
+     * The consumer must not write to the store.
+     *
+     * @param fountainId The fountain id.
+     * @param consumer   Receives the readings.
+     */
+    public void forEachReadingOfFountain(int fountainId, WaterAnalysisReadingConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            Columns c = columns;
+            for (int i = 0; i < c.size; i++) {
+                if (c.fountainId[i] == fountainId && !c.isRemoved(i)) {
+                    consumer.accept(c.id[i], fountainId, c.deviceId[i], c.epochDay[i], c.radon[i]);
+                }
+            }
+            for (Segment segment : segments.values()) {
+                for (int i = 0; i < segment.size; i++) {
+                    if (segment.fountainId[i] == fountainId) {
+                        consumer.accept(segment.id[i], fountainId, segment.deviceId[i], segment.day, segment.radon[i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static WaterAnalysisDto toAnalysis(int analysisId, int fountainId, int deviceId, int day, double radon) {
+        WaterAnalysisDto analysis = new WaterAnalysisDto();
+        analysis.id = analysisId;
+        analysis.fountainId = fountainId;
+        analysis.deviceId = deviceId;
+        analysis.setDate(LocalDate.ofEpochDay(day));
+        analysis.setRadonConcentration(radon);
+        return analysis;
+    }
+
+    /**
+     * @return the number of readings stored.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size - columns.removedCount + segmentedSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the stored reading of an analysis, if any. Called with the write lock held.
+     */
+    private void remove(int analysisId) {
+        Segment segment = segmentById.remove(analysisId);
+        if (segment != null) {
+            segment.remove(analysisId);
+            segmentedSize--;
+            if (segment.size == 0) {
+                segments.remove(segment.day);
+            }
+            return;
+        }
+        columns.markRemoved(analysisId);
+    }
+
+    private Collection<Segment> segmentsBetween(LocalDate from, LocalDate to) {
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        return fromDay > toDay ? List.of() : segments.subMap(fromDay, true, toDay, true).values();
+    }
+
+    /**
+     * Merges the segments into new columns, dropping removed readings. Called with the write lock held.
+     * Within a day, readings already in the columns stay ahead of the ones saved since.
+     */
+    private void compact() {
+        Columns c = columns;
+        Columns merged = new Columns(c.size - c.removedCount + segmentedSize);
+        int next = 0;
+        for (Segment segment : segments.values()) {
+            int end = c.firstIndexOfDay(segment.day + 1);
+            next = c.copyLiveTo(merged, next, end);
+            for (int i = 0; i < segment.size; i++) {
+                merged.append(segment.id[i], segment.fountainId[i], segment.deviceId[i], segment.day, segment.radon[i]);
+            }
+        }
+        c.copyLiveTo(merged, next, c.size);
+
+        columns = Columns.indexed(merged);
+        segments.clear();
+        segmentById.clear();
+        segmentedSize = 0;
+    }
+
+    /**
+     * The column arrays. Not thread-safe; guarded by the store's lock once published.
+     * Apart from removal marks, published columns are never modified.
+     */
+    private static final class Columns {
+
+        private double[] radon;
+        private int[] epochDay;
+        private int[] fountainId;
+        private int[] deviceId;
+        private int[] id;
+        private int size;
+
+        // Analysis ids in ascending order and the index of each one's reading
+        private int[] sortedIds = new int[0];
+        private int[] indexOfSortedId = new int[0];
+
+        private final BitSet removed = new BitSet();
+        private int removedCount;
+
+        Columns(int capacity) {
+            radon = new double[capacity];
+            epochDay = new int[capacity];
+            fountainId = new int[capacity];
+            deviceId = new int[capacity];
+            id = new int[capacity];
+        }
+
+        /**
+         * Builds the id index of fully populated columns.
+         *
+         * @return the same columns.
+         */
+        static Columns indexed(Columns columns) {
+            long[] keys = new long[columns.size];
+            for (int i = 0; i < columns.size; i++) {
+                keys[i] = ((long) columns.id[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            columns.sortedIds = new int[keys.length];
+            columns.indexOfSortedId = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                columns.sortedIds[i] = (int) (keys[i] >> 32);
+                columns.indexOfSortedId[i] = (int) keys[i];
+            }
+            return columns;
+        }
+
+        void append(int analysisId, int fountain, int device, int day, double value) {
+            ensureCapacity(size + 1);
+            set(size++, analysisId, fountain, device, day, value);
+        }
+
+        /**
+         * Returns a copy sorted by day, keeping the arrival order within a day.
+         */
+        Columns sortedByDay() {
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) epochDay[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            Columns sorted = new Columns(size);
+            for (int i = 0; i < size; i++) {
+                int from = (int) keys[i];
+                sorted.set(i, id[from], fountainId[from], deviceId[from], epochDay[from], radon[from]);
+            }
+            sorted.size = size;
+            return sorted;
+        }
+
+        /**
+         * Marks the reading of an analysis as removed.
+         */
+        void markRemoved(int analysisId) {
+            int index = indexOf(analysisId);
+            if (index >= 0) {
+                removed.set(index);
+                removedCount++;
+            }
+        }
+
+        /**
+         * @return the index of the analysis' reading, or -1 if it is not stored or was removed.
+         */
+        int indexOf(int analysisId) {
+            int slot = Arrays.binarySearch(sortedIds, analysisId);
+            if (slot < 0) {
+                return -1;
+            }
+            // Ids are not unique if the history had duplicates; take the first one still live
+            while (slot > 0 && sortedIds[slot - 1] == analysisId) {
+                slot--;
+            }
+            for (; slot < sortedIds.length && sortedIds[slot] == analysisId; slot++) {
+                int index = indexOfSortedId[slot];
+                if (!removed.get(index)) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        boolean isRemoved(int index) {
+            return removedCount > 0 && removed.get(index);
+        }
+
+        /**
+         * Appends the readings of [from, to) that are not removed to another set of columns.
+         *
+         * @return {@code to}, where the next copy should start.
+         */
+        int copyLiveTo(Columns target, int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (!isRemoved(i)) {
+                    target.append(id[i], fountainId[i], deviceId[i], epochDay[i], radon[i]);
+                }
+            }
+            return Math.max(from, to);
+        }
+
+        /**
+         * @return the [start, end) indexes of the readings between two days, both inclusive; null means unbounded.
+         */
+        int[] range(LocalDate from, LocalDate to) {
+            int start = from == null ? 0 : firstIndexOfDay((int) from.toEpochDay());
+            int end = to == null ? size : firstIndexOfDay((int) to.toEpochDay() + 1);
+            return new int[]{start, end};
+        }
+
+        /**
+         * @return the index of the first reading on or after the day, or {@code size} if there is none.
+         */
+        int firstIndexOfDay(int day) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDay[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Summarises [start, end), reducing the runs between removed readings.
+         */
+        RadonSummary summarize(int start, int end) {
+            if (removedCount == 0) {
+                return RadonReducer.summarize(radon, start, end);
+            }
+            RadonSummary summary = RadonSummary.empty();
+            int run = start;
+            for (int r = removed.nextSetBit(start); r >= 0 && r < end; r = removed.nextSetBit(r + 1)) {
+                summary = summary.merge(RadonReducer.summarize(radon, run, r));
+                run = r + 1;
+            }
+            return end > run ? summary.merge(RadonReducer.summarize(radon, run, end)) : summary;
+        }
+
+        private void set(int index, int analysisId, int fountain, int device, int day, double value) {
+            radon[index] = value;
+            epochDay[index] = day;
+            fountainId[index] = fountain;
+            deviceId[index] = device;
+            id[index] = analysisId;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= radon.length) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, Math.max(16, radon.length + (radon.length >> 1)));
+            radon = Arrays.copyOf(radon, newCapacity);
+            epochDay = Arrays.copyOf(epochDay, newCapacity);
+            fountainId = Arrays.copyOf(fountainId, newCapacity);
+            deviceId = Arrays.copyOf(deviceId, newCapacity);
+            id = Arrays.copyOf(id, newCapacity);
+        }
+    }
+
+    /**
+     * A reading recorded while a load was streaming.
+     */
+    private static final class PendingReading {
+
+        private final long generation;
+        private final int id;
+        private final int fountainId;
+        private final int deviceId;
+        private final int day;
+        private final double radon;
+
+        PendingReading(long generation, int id, int fountainId, int deviceId, int day, double radon) {
+            this.generation = generation;
+            this.id = id;
+            this.fountainId = fountainId;
+            this.deviceId = deviceId;
+            this.day = day;
+            this.radon = radon;
+        }
+    }
+
+    /**
+     * Readings of one day saved since the columns were built, in arrival order.
+     * Removing one moves the last reading into its place.
+     */
+    private static final class Segment {
+
+        private final int day;
+        private double[] radon = new double[4];
+        private int[] fountainId = new int[4];
+        private int[] deviceId = new int[4];
+        private int[] id = new int[4];
+        private int size;
+
+        Segment(int day) {
+            this.day = day;
+        }
+
+        void append(int analysisId, int fountain, int device, double value) {
+            if (size == radon.length) {
+                radon = Arrays.copyOf(radon, size * 2);
+                fountainId = Arrays.copyOf(fountainId, size * 2);
+                deviceId = Arrays.copyOf(deviceId, size * 2);
+                id = Arrays.copyOf(id, size * 2);
+            }
+            radon[size] = value;
+            fountainId[size] = fountain;
+            deviceId[size] = device;
+            id[size] = analysisId;
+            size++;
+        }
+
+        void remove(int analysisId) {
+            int i = indexOf(analysisId);
+            if (i >= 0) {
+                size--;
+                radon[i] = radon[size];
+                fountainId[i] = fountainId[size];
+                deviceId[i] = deviceId[size];
+                id[i] = id[size];
+            }
+        }
+
+        int indexOf(int analysisId) {
+            for (int i = 0; i < size; i++) {
+                if (id[i] == analysisId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        RadonSummary summarize() {
+            return RadonReducer.sequential(radon, 0, size);
+        }
+    }
+}
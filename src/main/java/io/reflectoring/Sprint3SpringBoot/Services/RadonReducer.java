@@ -0,0 +1,109 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes a {@link RadonSummary} (count, sum, min, max and variance) over a slice of a {@code double[]}.
+ * Large slices are split into a fork-join tree on the common pool and the partial summaries are merged;
+ * small slices, or any slice when only one core is available, are reduced sequentially because the
+ * task overhead would outweigh the gain. Variance uses Welford's update per element and Chan's merge
+ * between partial results, so it does not suffer from the cancellation of the sum-of-squares formula.
+ */
+public final class RadonReducer {
+
+    /**
+     * Slices shorter than this are always reduced on the calling thread. Below a few tens of thousands of
+     * readings the sequential loop finishes before the fork-join tasks are scheduled.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 15;
+
+    /**
+     * Lower bound for the size of a leaf task, so leaves stay large enough to amortise task creation.
+     */
+    static final int MIN_LEAF_SIZE = 1 << 13;
+
+    private RadonReducer() {
+    }
+
+    /**
+     * Summarises {@code values[from, to)}, in parallel when the slice is large enough.
+     *
+     * @param values The readings.
+     * @param from   The first index, inclusive.
+     * @param to     The last index, exclusive.
+     * @return The {@link RadonSummary} of the slice.
+     */
+    public static RadonSummary summarize(double[] values, int from, int to) {
+        return summarize(values, from, to, ForkJoinPool.commonPool());
+    }
+
+    static RadonSummary summarize(double[] values, int from, int to, ForkJoinPool pool) {
+        if (to - from < PARALLEL_THRESHOLD || pool.getParallelism() <= 1) {
+            return sequential(values, from, to);
+        }
+        return forkJoin(values, from, to, pool);
+    }
+
+    /**
+     * Always reduces with fork-join tasks, whatever the slice size. Used to measure the crossover point.
+     */
+    static RadonSummary forkJoin(double[] values, int from, int to, ForkJoinPool pool) {
+        // About four leaves per worker leaves room for work stealing to even out the load
+        int leafSize = Math.max(MIN_LEAF_SIZE, (to - from) / (pool.getParallelism() * 4));
+        return pool.invoke(new SummaryTask(values, from, to, leafSize));
+    }
+
+    /**
+     * Summarises {@code values[from, to)} on the calling thread.
+     */
+    public static RadonSummary sequential(double[] values, int from, int to) {
+        if (from >= to) {
+            return RadonSummary.empty();
+        }
+        int count = 0;
+        double sum = 0.0;
+        double mean = 0.0;
+        double m2 = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            count++;
+            sum += value;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return new RadonSummary(count, sum, min, max, m2);
+    }
+
+    private static final class SummaryTask extends RecursiveTask<RadonSummary> {
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        SummaryTask(double[] values, int from, int to, int leafSize) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected RadonSummary compute() {
+            if (to - from <= leafSize) {
+                return sequential(values, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            SummaryTask left = new SummaryTask(values, from, middle, leafSize);
+            left.fork();
+            RadonSummary right = new SummaryTask(values, middle, to, leafSize).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Mergeable quantile sketch for radon readings, in the style of DDSketch.
+ * Readings are counted in logarithmic buckets whose width is set by the relative accuracy: every quantile
+ * returned is within {@code relativeAccuracy} of a true reading at that rank. Sketches with the same accuracy
+ * merge exactly by adding bucket counts, so monthly and yearly percentiles come from merging daily sketches.
+ * Readings at or near zero are counted in a separate zero bucket.
+ *
+ * <p>With the default 1% accuracy, readings from 0.001 to 100 000 fit in fewer than 1 000 buckets,
+ * and a serialised day usually takes a few hundred bytes.</p>
+ */
+public class RadonSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // counts[i] holds the bucket with index offset + i
+    private long[] counts = new long[0];
+    private int offset;
+
+    public RadonSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public RadonSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1.");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value <= MIN_INDEXABLE) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureRange(index, index);
+        counts[index - offset]++;
+    }
+
+    /**
+     * Adds every reading counted by another sketch to this one.
+     *
+     * @param other A sketch with the same relative accuracy.
+     * @return this sketch.
+     */
+    public RadonSketch merge(RadonSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracies.");
+        }
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        if (other.counts.length > 0) {
+            ensureRange(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param quantile The quantile, from 0 to 1 (0.5 for the median, 0.99 for p99).
+     * @return the estimated reading at that quantile, or NaN if the sketch is empty.
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1.");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) (quantile * (count - 1));
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == count - 1) {
+            return max;
+        }
+        if (rank < zeroCount) {
+            return Math.max(min, 0.0);
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Serialises the sketch. Bucket counts are written as variable-length integers, starting at the
+     * lowest non-empty bucket.
+     */
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + Math.max(0, last - first + 1) * 2);
+        out.write(FORMAT_VERSION);
+        writeDouble(out, relativeAccuracy);
+        writeDouble(out, min);
+        writeDouble(out, max);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, zigZag(offset + first));
+        writeVarLong(out, Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            writeVarLong(out, counts[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a sketch written by {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException If the bytes are not a serialised sketch.
+     */
+    public static RadonSketch fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown radon sketch format.");
+            }
+            RadonSketch sketch = new RadonSketch(in.getDouble());
+            sketch.min = in.getDouble();
+            sketch.max = in.getDouble();
+            sketch.zeroCount = readVarLong(in);
+            sketch.offset = (int) unZigZag(readVarLong(in));
+            int length = (int) readVarLong(in);
+            if (length < 0 || length > in.remaining()) {
+                throw new IllegalArgumentException("Corrupted radon sketch.");
+            }
+            sketch.counts = new long[length];
+            sketch.count = sketch.zeroCount;
+            for (int i = 0; i < length; i++) {
+                sketch.counts[i] = readVarLong(in);
+                sketch.count += sketch.counts[i];
+            }
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Corrupted radon sketch.", e);
+        }
+    }
+
+    private void ensureRange(int lowIndex, int highIndex) {
+        if (counts.length == 0) {
+            offset = lowIndex;
+            counts = new long[highIndex - lowIndex + 1];
+            return;
+        }
+        int newLow = Math.min(offset, lowIndex);
+        int newHigh = Math.max(offset + counts.length - 1, highIndex);
+        if (newLow == offset && newHigh == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newHigh - newLow + 1];
+        System.arraycopy(counts, 0, grown, offset - newLow, counts.length);
+        counts = grown;
+        offset = newLow;
+    }
+
+    private static void writeDouble(ByteArrayOutputStream out, double value) {
+        out.writeBytes(ByteBuffer.allocate(Double.BYTES).putDouble(value).array());
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupted radon sketch.");
+    }
+
+    private static long zigZag(int value) {
+        return ((long) value << 1) ^ (value >> 31);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,96 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+/**
+ * Count, sum, minimum, maximum and spread of a set of radon readings.
+ * Summaries of disjoint sets can be merged with {@link #merge(RadonSummary)}; the spread is kept as the
+ * sum of squared deviations from the mean and merged with Chan's formula, so the variance stays accurate
+ * whatever the order in which partial summaries are combined.
+ */
+public class RadonSummary {
+
+    private final int count;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final double m2;
+
+    /**
+     * Creates a summary whose spread is unknown. {@link #getVariance()} returns NaN for it unless it holds
+     * at most one reading.
+     */
+    public RadonSummary(int count, double sum, double min, double max) {
+        this(count, sum, min, max, count <= 1 ? 0.0 : Double.NaN);
+    }
+
+    /**
+     * @param m2 The sum of squared deviations of the readings from their mean.
+     */
+    public RadonSummary(int count, double sum, double min, double max, double m2) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.m2 = m2;
+    }
+
+    /**
+     * @return a summary of no readings.
+     */
+    public static RadonSummary empty() {
+        return new RadonSummary(0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 0.0);
+    }
+
+    /**
+     * Combines this summary with another one covering different readings.
+     *
+     * @param other The summary to merge with.
+     * @return A new summary covering both sets of readings.
+     */
+    public RadonSummary merge(RadonSummary other) {
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            return other;
+        }
+        int total = count + other.count;
+        double delta = other.getAverage() - getAverage();
+        double mergedM2 = m2 + other.m2 + delta * delta * ((double) count * other.count / total);
+        return new RadonSummary(total, sum + other.sum, Math.min(min, other.min), Math.max(max, other.max), mergedM2);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /**
+     * @return the population variance, 0 if there are no readings, or NaN if the spread is unknown.
+     */
+    public double getVariance() {
+        return count == 0 ? 0.0 : m2 / count;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+}
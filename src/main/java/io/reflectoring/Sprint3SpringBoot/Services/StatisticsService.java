@@ -2,10 +2,13 @@ package io.reflectoring.Sprint3SpringBoot.Services;
 
 import io.reflectoring.Sprint3SpringBoot.Dto.StatisticsDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Enums.RollupPeriod;
 import io.reflectoring.Sprint3SpringBoot.Exceptions.UserNotFoundException;
 import io.reflectoring.Sprint3SpringBoot.Models.Statistics;
+import io.reflectoring.Sprint3SpringBoot.Models.StatisticsRollup;
 import io.reflectoring.Sprint3SpringBoot.Models.User;
 import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRepository;
+import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRollupRepository;
 import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +16,14 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class StatisticsService{
@@ -23,59 +32,58 @@ public class StatisticsService{
     private final WaterAnalysisService waterAnalysisService;
     private final StatisticsRepository statisticsRepository;
     private final UserRepository userRepository;
+    private final RadonColumnStore radonColumnStore;
+    private final StatisticsRollupRepository statisticsRollupRepository;
+
+    // A lock rather than a synchronized method: the rollup refresh does database I/O, which would
+    // pin the carrier thread when requests run on virtual threads.
+    private final ReentrantLock rollupLock = new ReentrantLock();
 
     @Autowired
-    public StatisticsService(WaterAnalysisService waterAnalysisService, StatisticsRepository statisticsRepository, UserRepository userRepository) {
+    public StatisticsService(WaterAnalysisService waterAnalysisService, StatisticsRepository statisticsRepository, UserRepository userRepository, RadonColumnStore radonColumnStore, StatisticsRollupRepository statisticsRollupRepository) {
         this.waterAnalysisService = waterAnalysisService;
         this.statisticsRepository = statisticsRepository;
         this.userRepository = userRepository;
+        this.radonColumnStore = radonColumnStore;
+        this.statisticsRollupRepository = statisticsRollupRepository;
     }
     /**
      * Calculates statistics (average, max, min, and total count) for water analyses.
-     * If a date is provided, it filters the analyses by that date.
+     * If a date is provided, only the analyses of that date are considered.
+     * The values come from the {@link RadonColumnStore}; the full analysis history is only
+     * streamed from the upstream API when the store has not been loaded yet or its content is stale.
+     * A {@link RadonSketch} of the readings is saved with the row and gives its p50, p90 and p99.
+     * Saving a dated statistic also refreshes the month and year rollups it belongs to.
      *
      * @param date The date to filter the analyses. If null, all analyses are considered.
      * @return A StatisticsDto object containing the calculated statistics.
-     * @throws IllegalArgumentException If the WaterAnalysisService returns null or an error occurs during processing.
+     * @throws IllegalArgumentException If the analyses cannot be read or an error occurs during processing.
      */
     public Statistics createStatistics(LocalDate date) {
         try {
-            // Get all water analyses from the service
-
-            List<WaterAnalysisDto> allAnalyses = waterAnalysisService.getAllWaterAnalyses();
-
-            // Check if the list of analyses is null (service error)
-            if (allAnalyses == null) {
-                throw new IllegalArgumentException("WaterAnalysisService returned null.");
+            if (radonColumnStore.needsLoad()) {
+                // Streamed so the full history is never materialised as a list
+                radonColumnStore.load(waterAnalysisService::streamAllWaterAnalyses);
             }
-            // Filter analyses by date if a date is provided
-            List<WaterAnalysisDto> analyses = date != null
-                    ? allAnalyses.stream()
-                    .filter(analysis -> analysis.getDate().equals(date))
-                    .toList()
-                    : allAnalyses;
-            // If no analyses are found, return default statistics
-            if (analyses.isEmpty()) {
 
-                throw new IllegalArgumentException("WaterAnalysis list returned empty.");
-
-            }
+            // Summary and sketch come from one pass, so the row's count, min and max agree with its percentiles
+            RadonSketch sketch = new RadonSketch();
+            RadonSummary summary = radonColumnStore.summarize(date, date, sketch);
 
-            // Calculate statistics
-            double sum = 0;
-            double max = Double.MIN_VALUE;
-            double min = Double.MAX_VALUE;
-
-            for (WaterAnalysisDto analysis : analyses) {
-                double radonLevel = analysis.getRadonConcentration();
-                sum += radonLevel;
-                max = Math.max(max, radonLevel);
-                min = Math.min(min, radonLevel);
+            // If no analyses are found, there is nothing to summarise
+            if (summary.isEmpty()) {
+                throw new IllegalArgumentException("WaterAnalysis list returned empty.");
             }
 
-            double average = sum / analyses.size();
-            Statistics statistics = new Statistics(average, max, min, analyses.size(), date);
+            Statistics statistics = new Statistics(summary.getAverage(), summary.getMax(), summary.getMin(), summary.getCount(), date);
+            statistics.radonSketch = sketch.toBytes();
+            statistics.p50RadonLevel = sketch.getQuantile(0.5);
+            statistics.p90RadonLevel = sketch.getQuantile(0.9);
+            statistics.p99RadonLevel = sketch.getQuantile(0.99);
             statisticsRepository.save(statistics);
+            if (date != null) {
+                refreshRollups(date);
+            }
 
             return  statistics;
 
@@ -91,34 +99,212 @@ public class StatisticsService{
             throw new IllegalArgumentException("Month out of range: " + month);
         }
 
-        List<Statistics> all = statisticsRepository.findAll();
+        LocalDate start = LocalDate.of(LocalDate.now().getYear(), month, 1);
+        return statisticsRepository.findByDateBetweenOrderByDateAsc(start, start.withDayOfMonth(start.lengthOfMonth()));
+    }
 
-        List<Statistics> monthStatistics = new ArrayList<>();
-        for (Statistics statistics : all) {
-            if (statistics.date.getMonthValue() == month && statistics.date.getYear() == LocalDate.now().getYear()) {
-                monthStatistics.add(statistics);
-            }
+    public List<Statistics> getYearStatistics(int year) {
+
+        if (year < 1900 || year > LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Month out of range: " + year);
         }
 
-        return monthStatistics;
+        return statisticsRepository.findByDateBetweenOrderByDateAsc(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
     }
 
-    public List<Statistics> getYearStatistics(int year) {
+    /**
+     * Returns the pre-aggregated statistics of a month of the current year.
+     *
+     * @param month The month, 1 to 12.
+     * @return The month's {@link StatisticsRollup}, or null if there are no statistics for that month.
+     * @throws IllegalArgumentException If the month is out of range.
+     */
+    public StatisticsRollup getMonthSummary(int month) {
+
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("Month out of range: " + month);
+        }
+
+        LocalDate start = LocalDate.of(LocalDate.now().getYear(), month, 1);
+        StatisticsRollup rollup = statisticsRollupRepository.findByPeriodAndDate(RollupPeriod.Month, start);
+        if (rollup != null) {
+            return rollup;
+        }
+
+        rollupLock.lock();
+        try {
+            // Another first read may have built it while this one waited
+            rollup = statisticsRollupRepository.findByPeriodAndDate(RollupPeriod.Month, start);
+            return rollup != null ? rollup : refreshMonthRollup(start);
+        } finally {
+            rollupLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the pre-aggregated statistics of a year.
+     *
+     * @param year The year.
+     * @return The year's {@link StatisticsRollup}, or null if there are no statistics for that year.
+     * @throws IllegalArgumentException If the year is out of range.
+     */
+    public StatisticsRollup getYearSummary(int year) {
 
         if (year < 1900 || year > LocalDate.now().getYear()) {
-            throw new IllegalArgumentException("Month out of range: " + year);
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+
+        StatisticsRollup rollup = statisticsRollupRepository.findByPeriodAndDate(RollupPeriod.Year, LocalDate.of(year, 1, 1));
+        if (rollup != null) {
+            return rollup;
+        }
+
+        rollupLock.lock();
+        try {
+            // Another first read may have built it while this one waited
+            rollup = statisticsRollupRepository.findByPeriodAndDate(RollupPeriod.Year, LocalDate.of(year, 1, 1));
+            if (rollup != null) {
+                return rollup;
+            }
+
+            return refreshYearRollup(year);
+        } finally {
+            rollupLock.unlock();
         }
+    }
 
-        List<Statistics> all = statisticsRepository.findAll();
+    /**
+     * Recomputes the month and year rollups that contain the given day.
+     * Every rollup write happens under {@code rollupLock}, so two builders never insert the same period.
+     */
+    private void refreshRollups(LocalDate date) {
+        rollupLock.lock();
+        try {
+            refreshMonthRollup(date.withDayOfMonth(1));
+            refreshYearRollup(date.getYear());
+        } finally {
+            rollupLock.unlock();
+        }
+    }
 
-        List<Statistics> yearStatistics = new ArrayList<>();
-        for (Statistics statistics : all) {
-            if (statistics.date.getYear() == year) {
-                yearStatistics.add(statistics);
+    /**
+     * Rebuilds a month rollup from its daily rows.
+     */
+    private StatisticsRollup refreshMonthRollup(LocalDate start) {
+        return buildMonthRollup(start, statisticsRepository.findByDateBetweenOrderByDateAsc(start, start.withDayOfMonth(start.lengthOfMonth())));
+    }
+
+    /**
+     * Builds a month rollup by merging its daily rows. When several rows exist for the same day
+     * only the most recent one is used. The percentiles come from merging the daily sketches and are
+     * left empty if a day was saved without one.
+     */
+    private StatisticsRollup buildMonthRollup(LocalDate start, List<Statistics> daily) {
+        Map<LocalDate, Statistics> latestPerDay = new LinkedHashMap<>();
+        for (Statistics statistics : daily) {
+            Statistics current = latestPerDay.get(statistics.date);
+            if (current == null || statistics.id > current.id) {
+                latestPerDay.put(statistics.date, statistics);
             }
         }
 
-        return yearStatistics;
+        RadonSummary summary = RadonSummary.empty();
+        RadonSketch sketch = new RadonSketch();
+        for (Statistics statistics : latestPerDay.values()) {
+            summary = summary.merge(toSummary(statistics.averageRadonLevel, statistics.maxRadonLevel, statistics.minRadonLevel, statistics.totalAnalysis));
+            sketch = mergeSketch(sketch, statistics.radonSketch);
+        }
+        return saveRollup(RollupPeriod.Month, start, summary, sketch);
+    }
+
+    /**
+     * Rebuilds a year rollup by merging its month rollups and their sketches.
+     * Months without a rollup (daily rows saved before rollups existed) are built first from
+     * their daily rows, read in a single query, so the year never covers only part of its history.
+     */
+    private StatisticsRollup refreshYearRollup(int year) {
+        LocalDate start = LocalDate.of(year, 1, 1);
+        List<StatisticsRollup> months = new ArrayList<>();
+        List<StatisticsRollup> stored = statisticsRollupRepository.findByPeriodAndDateBetween(RollupPeriod.Month, start, LocalDate.of(year, 12, 1));
+        if (stored != null) {
+            months.addAll(stored);
+        }
+        Set<LocalDate> built = new HashSet<>();
+        for (StatisticsRollup month : months) {
+            built.add(month.date);
+        }
+
+        // Months that have not started yet cannot have daily rows
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate month = start; month.getYear() == year && !month.isAfter(thisMonth); month = month.plusMonths(1)) {
+            if (!built.contains(month)) {
+                firstMissing = firstMissing == null ? month : firstMissing;
+                lastMissing = month;
+            }
+        }
+        if (firstMissing != null) {
+            Map<LocalDate, List<Statistics>> dailyByMonth = new TreeMap<>();
+            for (Statistics statistics : statisticsRepository.findByDateBetweenOrderByDateAsc(firstMissing, lastMissing.withDayOfMonth(lastMissing.lengthOfMonth()))) {
+                dailyByMonth.computeIfAbsent(statistics.date.withDayOfMonth(1), month -> new ArrayList<>()).add(statistics);
+            }
+            for (Map.Entry<LocalDate, List<Statistics>> entry : dailyByMonth.entrySet()) {
+                if (!built.contains(entry.getKey())) {
+                    StatisticsRollup month = buildMonthRollup(entry.getKey(), entry.getValue());
+                    if (month != null) {
+                        months.add(month);
+                    }
+                }
+            }
+        }
+
+        RadonSummary summary = RadonSummary.empty();
+        RadonSketch sketch = new RadonSketch();
+        for (StatisticsRollup month : months) {
+            summary = summary.merge(toSummary(month.averageRadonLevel, month.maxRadonLevel, month.minRadonLevel, month.totalAnalysis));
+            sketch = mergeSketch(sketch, month.radonSketch);
+        }
+        return saveRollup(RollupPeriod.Year, start, summary, sketch);
+    }
+
+    private StatisticsRollup saveRollup(RollupPeriod period, LocalDate start, RadonSummary summary, RadonSketch sketch) {
+        if (summary.isEmpty()) {
+            return null;
+        }
+
+        StatisticsRollup rollup = statisticsRollupRepository.findByPeriodAndDate(period, start);
+        if (rollup == null) {
+            rollup = new StatisticsRollup(period, start);
+        }
+        rollup.averageRadonLevel = summary.getAverage();
+        rollup.maxRadonLevel = summary.getMax();
+        rollup.minRadonLevel = summary.getMin();
+        rollup.totalAnalysis = summary.getCount();
+        rollup.radonSketch = sketch != null ? sketch.toBytes() : null;
+        rollup.p50RadonLevel = sketch != null ? sketch.getQuantile(0.5) : null;
+        rollup.p90RadonLevel = sketch != null ? sketch.getQuantile(0.9) : null;
+        rollup.p99RadonLevel = sketch != null ? sketch.getQuantile(0.99) : null;
+        statisticsRollupRepository.save(rollup);
+        return rollup;
+    }
+
+    /**
+     * @return the merged sketch, or null once a part without a sketch has been seen.
+     */
+    private static RadonSketch mergeSketch(RadonSketch merged, byte[] part) {
+        if (merged == null || part == null) {
+            return null;
+        }
+        try {
+            return merged.merge(RadonSketch.fromBytes(part));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static RadonSummary toSummary(double average, double max, double min, int totalAnalysis) {
+        return new RadonSummary(totalAnalysis, average * totalAnalysis, min, max);
     }
 
     public Statistics getStatisticsById(int id) {
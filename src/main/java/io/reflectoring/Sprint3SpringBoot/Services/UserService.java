@@ -1,5 +1,6 @@
 package io.reflectoring.Sprint3SpringBoot.Services;
 
+import io.reflectoring.Sprint3SpringBoot.Dto.FavouritesPageDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
 import io.reflectoring.Sprint3SpringBoot.Enums.Role;
@@ -7,10 +8,15 @@ import io.reflectoring.Sprint3SpringBoot.Exceptions.*;
 import io.reflectoring.Sprint3SpringBoot.Models.User;
 import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IFountainService;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FanOutExecutor;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
 import io.reflectoring.Sprint3SpringBoot.Services.IServices.IUserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import retrofit2.Response;
 
@@ -26,22 +32,33 @@ import java.util.Optional;
 @Service
 public class UserService implements IUserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
+    /**
+     * Largest page returned by {@link #getFavouritesPage(int, Integer, int)}; bigger requests are clamped.
+     */
+    public static final int MAX_FAVOURITES_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
 
     private final FountainService fountainService;
 
     private final WaterAnalysisService waterAnalysisService;
 
+    private final FanOutExecutor fanOutExecutor;
+
     /**
      * Constructor for dependency injection.
      *
      * @param userRepository The repository for user operations.
+     * @param fanOutExecutor The executor used to resolve remote ids in parallel.
      */
     @Autowired
-    public UserService(UserRepository userRepository, FountainService fountainService, WaterAnalysisService waterAnalysisService) {
+    public UserService(UserRepository userRepository, FountainService fountainService, WaterAnalysisService waterAnalysisService, FanOutExecutor fanOutExecutor) {
         this.userRepository = userRepository;
         this.fountainService = fountainService;
         this.waterAnalysisService = waterAnalysisService;
+        this.fanOutExecutor = fanOutExecutor;
     }
 
     /**
@@ -132,12 +149,7 @@ public class UserService implements IUserService {
         if (user.getRole() != Role.Client)
             throw new RoleNotAcepted("User with ID " + id + " is not a client.");
 
-        List<FountainDto> fountains = new ArrayList<>();
-        for (Integer i : user.getFavourites()) {
-            FountainDto fountain = fountainService.getFountainById(i);
-            fountains.add(fountain);
-        }
-        return fountains;
+        return fountainService.getFountainsByIds(userRepository.findFavouriteIds(id));
     }
 
     /**
@@ -165,14 +177,14 @@ public class UserService implements IUserService {
         }
 
         // Toggle the favourite: if it exists, remove it; otherwise, add it.
-        if (usr.getFavourites().contains(fountainId)) {
-            usr.getFavourites().remove(Integer.valueOf(fountainId));
-        } else {
-            usr.getFavourites().add(fountainId);
+        // Both are single-row statements, so the rest of the user's favourites are never loaded or rewritten.
+        if (userRepository.removeFavourite(id, fountainId) == 0) {
+            try {
+                userRepository.addFavourite(id, fountainId);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request added it first; it is a favourite either way
+            }
         }
-        
-
-        userRepository.save(usr);
 
         return fountainService.getFountainById(fountainId);
     }
@@ -199,9 +211,7 @@ public class UserService implements IUserService {
         if (user.get().getRole() != Role.Client)
             throw new RoleNotAcepted("User with ID " + id + " is not a client.");
 
-        User usr = user.get();
-        usr.getFavourites().remove(fountainDto);
-        userRepository.save(usr);
+        userRepository.removeFavourite(id, fountainDto);
 
         return fountainService.getFountainById(fountainDto);
 
@@ -214,6 +224,7 @@ public class UserService implements IUserService {
      * @return A list of {@link WaterAnalysisDto} representing the tester's water analyses.
      * @throws UserNotFoundException If the user with the given ID is not found.
      * @throws RoleNotAcepted        If the user is not a tester.
+     * @throws RetrofitException     If none of the tester's water analyses could be fetched.
      */
     @Override
     public List<WaterAnalysisDto> getTesterWaterAnalysis(int id) {
@@ -222,12 +233,15 @@ public class UserService implements IUserService {
         if (user.getRole() != Role.Tester)
             throw new RoleNotAcepted("User with ID " + id + " is not a tester.");
 
-        List<WaterAnalysisDto> waterAnalysis = new ArrayList<>();
-        for (Integer i : user.getWaterAnalysis()) {
-            WaterAnalysisDto waterAnalysisDto = waterAnalysisService.getWaterAnalysisById(i);
-            waterAnalysis.add(waterAnalysisDto);
+        FanOutExecutor.FanOutResult<WaterAnalysisDto> result =
+                fanOutExecutor.resolve(user.getWaterAnalysis(), waterAnalysisService::getWaterAnalysisById);
+
+        if (result.hasFailures()) {
+            if (result.getValues().isEmpty())
+                throw new RetrofitException("Failed to fetch water analyses for tester with ID " + id + ": " + result.getFailures());
+            logger.warn("Could not resolve water analyses {} for tester {}", result.getFailures(), id);
         }
-        return waterAnalysis;
+        return result.getValues();
     }
 
     /**
@@ -292,17 +306,17 @@ public class UserService implements IUserService {
 
     /**
      * Retrieves a list of the user's favorite fountains, up to a specified limit.
+     * Favourites are a set without an insertion order, so these are the {@code i} lowest fountain ids,
+     * the same fountains as the first page of {@link #getFavouritesPage(int, Integer, int)}.
      *
      * @param id The unique identifier of the user whose favorites are being retrieved.
      * @param i  The maximum number of favorite fountains to return.
-     * @return A list of {@link FountainDto} objects representing the user's favorite fountains.
+     * @return The favourite fountains with the {@code i} lowest ids, in ascending id order.
      * @throws ParamException If the provided limit {@code i} is less than or equal to 0.
      * @throws RoleNotAcepted If the user is not a client.
      */
     @Override
     public List<FountainDto> getXFavourites(int id, int i) {
-        List<FountainDto> listFavourites = new ArrayList<>();
-
         User user = getUserById(id);
 
         if (i <= 0)
@@ -311,16 +325,63 @@ public class UserService implements IUserService {
         if (user.getRole() != Role.Client)
             throw new RoleNotAcepted("User with ID " + id + " is not a client.");
 
-        int j = 0;
-        for (Integer f : user.getFavourites()) {
-            FountainDto fountain = fountainService.getFountainById(f);
-            listFavourites.add(fountain);
-            j++;
-            if (j == i)
-                break;
-        }
+        return fountainService.getFountainsByIds(userRepository.findFavouriteIdsAfter(id, Integer.MIN_VALUE, PageRequest.of(0, i)));
+    }
+
+    /**
+     * Retrieves a user's favourite fountain ids without resolving them.
+     *
+     * @param id The unique identifier of the user.
+     * @return The favourite fountain ids in ascending order.
+     * @throws UserNotFoundException If the user with the given ID is not found.
+     * @throws RoleNotAcepted        If the user is not a client.
+     */
+    @Override
+    public List<Integer> getUserFavouriteIds(int id) {
+        User user = getUserById(id);
+
+        if (user.getRole() != Role.Client)
+            throw new RoleNotAcepted("User with ID " + id + " is not a client.");
+
+        return userRepository.findFavouriteIds(id);
+    }
+
+    /**
+     * Retrieves one page of a user's favourite fountains, ordered by fountain id.
+     * Only the ids of the page are read from the database and resolved upstream.
+     * The cursor is the last fountain id of the previous page, so pages stay consistent when favourites
+     * are added or removed between requests.
+     *
+     * @param id     The unique identifier of the user.
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param size   The maximum number of fountains to return, clamped to {@link #MAX_FAVOURITES_PAGE_SIZE}.
+     * @return A {@link FavouritesPageDto} with the resolved fountains and the cursor of the next page.
+     * @throws UserNotFoundException If the user with the given ID is not found.
+     * @throws ParamException        If the provided size is less than or equal to 0.
+     * @throws RoleNotAcepted        If the user is not a client.
+     */
+    @Override
+    public FavouritesPageDto getFavouritesPage(int id, Integer cursor, int size) {
+        User user = getUserById(id);
+
+        if (size <= 0)
+            throw new ParamException("Param invalid.");
 
-        return listFavourites;
+        if (user.getRole() != Role.Client)
+            throw new RoleNotAcepted("User with ID " + id + " is not a client.");
+
+        int pageSize = Math.min(size, MAX_FAVOURITES_PAGE_SIZE);
+        // One extra id tells whether there is a next page without a count query
+        List<Integer> ids = userRepository.findFavouriteIdsAfter(id, cursor != null ? cursor : Integer.MIN_VALUE,
+                PageRequest.of(0, pageSize + 1));
+
+        Integer nextCursor = null;
+        if (ids.size() > pageSize) {
+            ids = ids.subList(0, pageSize);
+            nextCursor = ids.get(pageSize - 1);
+        }
+        List<FountainDto> fountains = ids.isEmpty() ? List.of() : fountainService.getFountainsByIds(ids);
+        return new FavouritesPageDto(pageSize, nextCursor, fountains);
     }
 
     @Override
@@ -336,8 +397,6 @@ public class UserService implements IUserService {
         if (fountainDto == null)
             throw new ParamException("Fountain does not exist.");
 
-        if (user.getFavourites().contains(fountainDto.getId()))
-            return true;
-        return user.getFavourites().contains(idFountain);
+        return userRepository.isFavourite(idUser, fountainDto.getId());
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+-- One-off cleanup for databases created before favourites became unique per user and fountain.
+-- With spring.jpa.hibernate.ddl-auto=update Hibernate adds the uk_user_favourites constraint on startup,
+-- which fails while the old list mapping's duplicate rows remain. Run this once against SQL Server first.
+
+DELETE FROM user_favourites WHERE fountain_id IS NULL;
+
+WITH ranked AS (
+    SELECT ROW_NUMBER() OVER (PARTITION BY user_id, fountain_id ORDER BY (SELECT NULL)) AS copy
+    FROM user_favourites
+)
+DELETE FROM ranked WHERE copy > 1;
@@ -0,0 +1,79 @@
+package io.reflectoring.Sprint3SpringBoot.Cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> flights.call(1, () -> {
+                upstreamCalls.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "fountain-1";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<String> second = flights.callAsync(1, () -> {
+                upstreamCalls.incrementAndGet();
+                return CompletableFuture.completedFuture("other");
+            });
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("fountain-1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("fountain-1");
+            assertThat(upstreamCalls.get()).isEqualTo(1);
+            assertThat(flights.getCoalesced()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompletedLoadIsNotReused() {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+
+        flights.call(1, () -> "first");
+
+        assertThat(flights.call(1, () -> "second")).isEqualTo("second");
+        assertThat(flights.getLoads()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFailureIsRethrownAndNotKept() {
+        SingleFlight<Integer, String> flights = new SingleFlight<>();
+
+        assertThatThrownBy(() -> flights.call(1, () -> {
+            throw new RetrofitException("Error fetching fountain: 500");
+        })).isInstanceOf(RetrofitException.class);
+
+        assertThat(flights.call(1, () -> "fountain-1")).isEqualTo("fountain-1");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package io.reflectoring.Sprint3SpringBoot.Cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        TtlCache<Integer, String> cache = new TtlCache<>(10, Duration.ofSeconds(60), now::get);
+
+        assertThat(cache.get(1)).isNull();
+        cache.put(1, "fountain-1");
+        assertThat(cache.get(1)).isEqualTo("fountain-1");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() {
+        TtlCache<Integer, String> cache = new TtlCache<>(10, Duration.ofSeconds(60), now::get);
+        cache.put(1, "fountain-1");
+
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.stats().getExpirations()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        TtlCache<Integer, String> cache = new TtlCache<>(2, Duration.ofSeconds(60), now::get);
+        cache.put(1, "fountain-1");
+        cache.put(2, "fountain-2");
+        cache.get(1);
+        cache.put(3, "fountain-3");
+
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(1)).isEqualTo("fountain-1");
+        assertThat(cache.get(3)).isEqualTo("fountain-3");
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPutNullInvalidates() {
+        TtlCache<Integer, String> cache = new TtlCache<>(10, Duration.ofSeconds(60), now::get);
+        cache.put(1, "fountain-1");
+        cache.put(1, null);
+
+        assertThat(cache.get(1)).isNull();
+    }
+}
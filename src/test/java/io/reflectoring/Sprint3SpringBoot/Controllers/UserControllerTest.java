@@ -0,0 +1,65 @@
+package io.reflectoring.Sprint3SpringBoot.Controllers;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Exceptions.ParamException;
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RoleNotAcepted;
+import io.reflectoring.Sprint3SpringBoot.Services.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class UserControllerTest {
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private UserController userController;
+
+    @Test
+    public void testIdsOnlyReturnsTheIdsWithoutResolvingThem() {
+        when(userService.getUserFavouriteIds(1)).thenReturn(List.of(3, 7));
+
+        ResponseEntity<?> response = userController.getUserFavourites(1, true);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(List.of(3, 7));
+        verify(userService, never()).getUserFavourites(anyInt());
+    }
+
+    @Test
+    public void testFavouritesAreResolvedByDefault() {
+        FountainDto fountain = new FountainDto();
+        fountain.setId(3);
+        when(userService.getUserFavourites(1)).thenReturn(List.of(fountain));
+
+        ResponseEntity<?> response = userController.getUserFavourites(1, false);
+
+        assertThat(response.getBody()).isEqualTo(List.of(fountain));
+        verify(userService, never()).getUserFavouriteIds(anyInt());
+    }
+
+    @Test
+    public void testIdsOnlyOfNonClientIsNotFound() {
+        when(userService.getUserFavouriteIds(1)).thenThrow(new RoleNotAcepted("User with ID 1 is not a client."));
+
+        assertThat(userController.getUserFavourites(1, true).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    public void testInvalidPageSizeIsBadRequest() {
+        when(userService.getFavouritesPage(1, null, 0)).thenThrow(new ParamException("Param invalid."));
+
+        assertThat(userController.getFavouritesPage(1, null, 0).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,84 @@
+package io.reflectoring.Sprint3SpringBoot.JWT;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import io.reflectoring.Sprint3SpringBoot.Services.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthTokenFilterTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    private JwtUtil jwtUtil;
+
+    private AuthTokenFilter authTokenFilter;
+
+    @BeforeEach
+    public void setUp() {
+        AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "jojojokikikihuhuhugygygybynymytr");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", authMetrics);
+        jwtUtil.init();
+
+        authTokenFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(authTokenFilter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(authTokenFilter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(authTokenFilter, "authMetrics", authMetrics);
+        ReflectionTestUtils.setField(authTokenFilter, "statelessPrincipal", true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testStatelessPrincipalCarriesTheUserIdAndRole() throws Exception {
+        Authentication authentication = authenticate(jwtUtil.generateToken("client@example.com", 7, Role.Client));
+
+        AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+        assertThat(principal.getUsername()).isEqualTo("client@example.com");
+        assertThat(principal.getUserId()).isEqualTo(7);
+        assertThat(principal.getRole()).isEqualTo(Role.Client);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_Client");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    public void testTokenWithoutClaimsIsLoadedFromTheDatabase() throws Exception {
+        AuthenticatedUser stored = new AuthenticatedUser("client@example.com", "hash", 7, Role.Client);
+        when(userDetailsService.loadUserByUsernameCached("client@example.com")).thenReturn(stored);
+
+        Authentication authentication = authenticate(jwtUtil.generateToken("client@example.com"));
+
+        assertThat(authentication.getPrincipal()).isSameAs(stored);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_Client");
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        authTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,121 @@
+package io.reflectoring.Sprint3SpringBoot.JWT;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+public class JwtUtilTest {
+
+    private static final String SECRET = "jojojokikikihuhuhugygygybynymytr";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 3600000);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(jwtUtil, "authMetrics", new AuthMetrics(meterRegistry));
+        jwtUtil.init();
+    }
+
+    @Test
+    public void testValidTokenIsAccepted() {
+        Claims claims = jwtUtil.getValidatedClaims(jwtUtil.generateToken("client@example.com"));
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo("client@example.com");
+        assertThat(totalRejections()).isZero();
+    }
+
+    @Test
+    public void testTamperedTokenIsCountedAsBadSignature() {
+        String[] token = jwtUtil.generateToken("client@example.com").split("\\.");
+        String[] other = jwtUtil.generateToken("admin@example.com").split("\\.");
+        String tampered = token[0] + "." + other[1] + "." + token[2];
+
+        assertThat(jwtUtil.getValidatedClaims(tampered)).isNull();
+        assertThat(rejections("bad_signature")).isEqualTo(1.0);
+        assertThat(totalRejections()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testExpiredTokenIsCountedAsExpired() {
+        String expired = signedToken(new Date(System.currentTimeMillis() - 60000));
+
+        assertThat(jwtUtil.getValidatedClaims(expired)).isNull();
+        assertThat(rejections("expired")).isEqualTo(1.0);
+        assertThat(totalRejections()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testMalformedTokenIsCountedAsMalformed() {
+        assertThat(jwtUtil.getValidatedClaims("not-a-token")).isNull();
+        assertThat(rejections("malformed")).isEqualTo(1.0);
+        assertThat(totalRejections()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testEmptyTokenIsCountedAsEmpty() {
+        assertThat(jwtUtil.getValidatedClaims("")).isNull();
+        assertThat(rejections("empty")).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCachedTokenSkipsVerification() {
+        String token = jwtUtil.generateToken("client@example.com");
+
+        jwtUtil.getValidatedClaims(token);
+        jwtUtil.getValidatedClaims(token);
+
+        assertThat(meterRegistry.get("auth.token.parse").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.token.verify").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCachedTokenIsNotServedPastItsExpiry() throws InterruptedException {
+        // Expirations are kept in whole seconds, so this one lies between one and two seconds ahead
+        String token = signedToken(new Date(System.currentTimeMillis() + 2000));
+        Claims claims = jwtUtil.getValidatedClaims(token);
+        assertThat(claims).isNotNull();
+        assertThat(jwtUtil.getValidatedClaims(token)).isNotNull();
+        assertThat(meterRegistry.get("auth.token.verify").timer().count()).isEqualTo(1);
+
+        Thread.sleep(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()) + 100);
+
+        assertThat(jwtUtil.getValidatedClaims(token)).isNull();
+        assertThat(meterRegistry.get("auth.token.verify").timer().count()).isEqualTo(2);
+        assertThat(rejections("expired")).isEqualTo(1.0);
+    }
+
+    private static String signedToken(Date expiration) {
+        return Jwts.builder()
+                .setSubject("client@example.com")
+                .setIssuedAt(new Date(expiration.getTime() - 3600000))
+                .setExpiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get("auth.token.rejected").tag("reason", reason).counter().count();
+    }
+
+    private double totalRejections() {
+        return meterRegistry.get("auth.token.rejected").counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+}
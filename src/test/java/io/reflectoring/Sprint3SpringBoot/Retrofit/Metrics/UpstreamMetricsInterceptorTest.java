@@ -0,0 +1,74 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IFountainService;
+import okhttp3.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import retrofit2.Retrofit;
+import retrofit2.converter.jackson.JacksonConverterFactory;
+
+public class UpstreamMetricsInterceptorTest {
+
+    private static final String FOUNTAIN = "{\"id\":5,\"description\":\"Praça\",\"continuousUseDeviceId\":1}";
+
+    private SimpleMeterRegistry meterRegistry;
+    private int status;
+
+    private IFountainService fountainService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        status = 200;
+
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(new UpstreamMetricsInterceptor(meterRegistry))
+                .addInterceptor(chain -> new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(status)
+                        .message("stub")
+                        .body(ResponseBody.create(FOUNTAIN, MediaType.get("application/json")))
+                        .build())
+                .build();
+        fountainService = new Retrofit.Builder()
+                .baseUrl("http://localhost/api/")
+                .client(client)
+                .addConverterFactory(JacksonConverterFactory.create())
+                .build()
+                .create(IFountainService.class);
+    }
+
+    @Test
+    public void testCallsAreRecordedPerEndpointTemplate() throws Exception {
+        fountainService.getFountainById(5).execute();
+        fountainService.getFountainById(6).execute();
+
+        assertThat(meterRegistry.get("upstream.requests")
+                .tags("uri", "fountains/{id}", "method", "GET", "status", "2xx", "outcome", "SUCCESS")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("upstream.response.bytes").tags("uri", "fountains/{id}").counter().count())
+                .isEqualTo(2.0 * FOUNTAIN.getBytes().length);
+    }
+
+    @Test
+    public void testServerErrorsAreTaggedWithTheirOutcome() throws Exception {
+        status = 503;
+
+        fountainService.getFountainById(5).execute();
+
+        assertThat(meterRegistry.get("upstream.requests")
+                .tags("uri", "fountains/{id}", "status", "5xx", "outcome", "SERVER_ERROR")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testTemplateFallsBackToNumericSegments() {
+        Request request = new Request.Builder().url("http://localhost/api/fountains/12/device/3").build();
+
+        assertThat(UpstreamMetricsInterceptor.templateOf(request)).isEqualTo("fountains/{id}/device/{id}");
+    }
+}
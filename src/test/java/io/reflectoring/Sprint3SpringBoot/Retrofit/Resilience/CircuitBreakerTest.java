@@ -0,0 +1,150 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private CircuitBreaker newBreaker() {
+        return new CircuitBreaker(50, 4, 10, 1000, 2, now::get);
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = newBreaker();
+
+        for (int i = 0; i < 3; i++) {
+            long permission = breaker.tryAcquirePermission();
+            assertThat(permission).isNotEqualTo(CircuitBreaker.REJECTED);
+            breaker.onFailure(permission);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testOpensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = newBreaker();
+
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterSuccessfulProbes() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+
+        now.addAndGet(Duration.ofMillis(1001).toNanos());
+
+        long first = breaker.tryAcquirePermission();
+        long second = breaker.tryAcquirePermission();
+        assertThat(first).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(second).isNotEqualTo(CircuitBreaker.REJECTED);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.REJECTED);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(first);
+        breaker.onSuccess(second);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    public void testHalfOpenReopensOnFailedProbe() {
+        CircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+        now.addAndGet(Duration.ofMillis(1001).toNanos());
+
+        fail(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    @Test
+    public void testLateOutcomesOfCallsAdmittedWhileClosedAreNotProbes() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 10, 1000, 1, now::get);
+        long slowSuccess = breaker.tryAcquirePermission();
+        long slowFailure = breaker.tryAcquirePermission();
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+        now.addAndGet(Duration.ofMillis(1001).toNanos());
+        long probe = breaker.tryAcquirePermission();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(slowSuccess);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onFailure(slowFailure);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onSuccess(probe);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testLateOutcomeOfAnOldProbeDoesNotReopen() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 10, 1000, 1, now::get);
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+        now.addAndGet(Duration.ofMillis(1001).toNanos());
+        long probe = breaker.tryAcquirePermission();
+        breaker.onSuccess(probe);
+
+        // A second report for the same, now outdated, permission
+        breaker.onFailure(probe);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    public void testReleasedProbeCanBeTakenAgain() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 10, 1000, 1, now::get);
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+        now.addAndGet(Duration.ofMillis(1001).toNanos());
+
+        breaker.releasePermission(breaker.tryAcquirePermission());
+
+        assertThat(breaker.tryAcquirePermission()).isNotEqualTo(CircuitBreaker.REJECTED);
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 4, 1000, 1, now::get);
+        fail(breaker);
+        for (int i = 0; i < 4; i++) {
+            succeed(breaker);
+        }
+
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    private static void succeed(CircuitBreaker breaker) {
+        breaker.onSuccess(breaker.tryAcquirePermission());
+    }
+
+    private static void fail(CircuitBreaker breaker) {
+        breaker.onFailure(breaker.tryAcquirePermission());
+    }
+}
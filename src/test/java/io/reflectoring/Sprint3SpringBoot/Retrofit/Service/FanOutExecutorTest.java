@@ -0,0 +1,71 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FanOutExecutorTest {
+
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(4, 500);
+
+    @AfterEach
+    public void tearDown() {
+        fanOutExecutor.shutdown();
+    }
+
+    @Test
+    public void testResolveKeepsInputOrder() {
+        FanOutExecutor.FanOutResult<String> result = fanOutExecutor.resolve(List.of(3, 1, 2), id -> {
+            sleep(10L * id);
+            return "analysis-" + id;
+        });
+
+        assertThat(result.hasFailures()).isFalse();
+        assertThat(result.getValues()).containsExactly("analysis-3", "analysis-1", "analysis-2");
+    }
+
+    @Test
+    public void testResolveReportsPartialFailures() {
+        FanOutExecutor.FanOutResult<String> result = fanOutExecutor.resolve(List.of(1, 2, 3), id -> {
+            if (id == 2) {
+                throw new RetrofitException("Error fetching water analysis with ID: 2");
+            }
+            if (id == 3) {
+                sleep(2000);
+            }
+            return "analysis-" + id;
+        });
+
+        assertThat(result.getValues()).containsExactly("analysis-1");
+        assertThat(result.getFailures()).containsOnlyKeys(2, 3);
+        assertThat(result.getFailures().get(3)).contains("Timed out");
+    }
+
+    @Test
+    public void testResolveRespectsConcurrencyCap() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        fanOutExecutor.resolve(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), id -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(20);
+            running.decrementAndGet();
+            return id;
+        });
+
+        assertThat(peak.get()).isLessThanOrEqualTo(4);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RetrofitException;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IFountainService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+public class FountainServiceTest {
+
+    @Mock
+    private IFountainService fountainApi;
+
+    @Mock
+    private Call<FountainDto> getCall;
+
+    @Mock
+    private Call<FountainDto> updateCall;
+
+    @Mock
+    private Call<Boolean> deleteCall;
+
+    @Mock
+    private Call<List<FountainDto>> batchCall;
+
+    @Mock
+    private Call<List<FountainDto>> allCall;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private FountainService fountainService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fountainService = new FountainService(fountainApi, 100, 60000, 60000, meterRegistry);
+    }
+
+    @Test
+    public void testReadIsCachedWithoutWrites() throws Exception {
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(getCall.execute()).thenReturn(Response.success(fountain(1, "Praça")));
+
+        fountainService.getFountainById(1);
+        fountainService.getFountainById(1);
+
+        verify(fountainApi, times(1)).getFountainById(1);
+    }
+
+    @Test
+    public void testReadOverlappingWriteDoesNotCacheOldBody() throws Exception {
+        FountainDto updated = fountain(1, "Jardim");
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(fountainApi.updateFountain(1, updated)).thenReturn(updateCall);
+        when(updateCall.execute()).thenReturn(Response.success(updated));
+        // The update completes while the read is still waiting for the old body
+        when(getCall.execute()).thenAnswer(invocation -> {
+            fountainService.updateFountain(1, updated);
+            return Response.success(fountain(1, "Praça"));
+        });
+
+        assertThat(fountainService.getFountainById(1).getDescription()).isEqualTo("Praça");
+
+        assertThat(fountainService.getFountainById(1).getDescription()).isEqualTo("Jardim");
+        verify(fountainApi, times(1)).getFountainById(1);
+    }
+
+    @Test
+    public void testFailedUpdateDropsTheCachedFountain() throws Exception {
+        FountainDto updated = fountain(1, "Jardim");
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(getCall.execute()).thenReturn(Response.success(fountain(1, "Praça")));
+        when(fountainApi.updateFountain(1, updated)).thenReturn(updateCall);
+        when(updateCall.execute()).thenThrow(new IOException("timeout"));
+        fountainService.getFountainById(1);
+
+        // The update may still have reached the upstream
+        assertThatThrownBy(() -> fountainService.updateFountain(1, updated)).isInstanceOf(RetrofitException.class);
+        fountainService.getFountainById(1);
+
+        verify(fountainApi, times(2)).getFountainById(1);
+    }
+
+    @Test
+    public void testFailedDeleteDropsTheCachedFountain() throws Exception {
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(getCall.execute()).thenReturn(Response.success(fountain(1, "Praça")));
+        when(fountainApi.deleteFountain(1)).thenReturn(deleteCall);
+        when(deleteCall.execute()).thenThrow(new IOException("timeout"));
+        fountainService.getFountainById(1);
+
+        assertThatThrownBy(() -> fountainService.deleteFountain(1)).isInstanceOf(RetrofitException.class);
+        fountainService.getFountainById(1);
+
+        verify(fountainApi, times(2)).getFountainById(1);
+    }
+
+    @Test
+    public void testChangingAReturnedFountainDoesNotChangeTheCache() throws Exception {
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(getCall.execute()).thenReturn(Response.success(fountain(1, "Praça")));
+
+        fountainService.getFountainById(1).setDescription("Changed");
+        fountainService.getFountainById(1).setDescription("Changed again");
+
+        assertThat(fountainService.getFountainById(1).getDescription()).isEqualTo("Praça");
+        assertThat(fountainService.getFountainsByIds(List.of(1)).get(0).getDescription()).isEqualTo("Praça");
+        verify(fountainApi, times(1)).getFountainById(1);
+    }
+
+    @Test
+    public void testCacheCountersArePublished() throws Exception {
+        when(fountainApi.getFountainById(1)).thenReturn(getCall);
+        when(getCall.execute()).thenReturn(Response.success(fountain(1, "Praça")));
+
+        fountainService.getFountainById(1);
+        fountainService.getFountainById(1);
+        fountainService.getFountainById(1);
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "fountains", "result", "hit").functionCounter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "fountains", "result", "miss").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "fountains").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.max.size").tag("cache", "fountains").gauge().value()).isEqualTo(100.0);
+    }
+
+    @Test
+    public void testUnsupportedBatchEndpointIsSkippedUntilTheInterval() throws Exception {
+        stubUnsupportedBatchEndpoint();
+
+        // Neither fountain exists, so neither is cached by the fallback
+        fountainService.getFountainsByIds(List.of(3));
+        fountainService.getFountainsByIds(List.of(4));
+
+        verify(fountainApi, times(1)).getFountainsByIds(any());
+        verify(fountainApi, times(2)).getAllFountains();
+    }
+
+    @Test
+    public void testUnsupportedBatchEndpointIsProbedAgainAfterTheInterval() throws Exception {
+        fountainService = new FountainService(fountainApi, 100, 60000, 0, new SimpleMeterRegistry());
+        stubUnsupportedBatchEndpoint();
+
+        fountainService.getFountainsByIds(List.of(3));
+        fountainService.getFountainsByIds(List.of(4));
+
+        verify(fountainApi, times(2)).getFountainsByIds(any());
+    }
+
+    private void stubUnsupportedBatchEndpoint() throws Exception {
+        when(fountainApi.getFountainsByIds(any())).thenReturn(batchCall);
+        when(batchCall.execute()).thenReturn(Response.error(404, ResponseBody.create("", null)));
+        when(fountainApi.getAllFountains()).thenReturn(allCall);
+        // Each fallback call gets a fresh body, since the fountains it returns are cached
+        when(allCall.execute()).thenAnswer(invocation -> Response.success(List.of(fountain(1, "Praça"), fountain(2, "Jardim"))));
+    }
+
+    private static FountainDto fountain(int id, String description) {
+        FountainDto fountain = new FountainDto();
+        fountain.setId(id);
+        fountain.setDescription(description);
+        return fountain;
+    }
+}
@@ -0,0 +1,53 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class WaterAnalysisJsonReaderTest {
+
+    private static InputStream json(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadsEveryAnalysisInOrder() throws IOException {
+        List<String> readings = new ArrayList<>();
+
+        int count = WaterAnalysisJsonReader.read(json("""
+                [
+                  {"id": 1, "radonConcentration": 12.5, "fountainId": 3, "date": "2024-05-01", "deviceId": 7},
+                  {"id": 2, "fountain": {"name": "ignored"}, "radonConcentration": 0, "fountainId": 4, "date": null, "deviceId": 8}
+                ]
+                """), (id, fountainId, deviceId, epochDay, radon) ->
+                readings.add(id + "/" + fountainId + "/" + deviceId + "/" + epochDay + "/" + radon));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(readings).containsExactly(
+                "1/3/7/" + LocalDate.of(2024, 5, 1).toEpochDay() + "/12.5",
+                "2/4/8/" + WaterAnalysisReadingConsumer.NO_DATE + "/0.0");
+    }
+
+    @Test
+    public void testEmptyArrayReadsNothing() throws IOException {
+        assertThat(WaterAnalysisJsonReader.read(json("[]"), (id, fountainId, deviceId, epochDay, radon) -> {
+            throw new AssertionError("no analysis expected");
+        })).isZero();
+    }
+
+    @Test
+    public void testRejectsInvalidDate() {
+        assertThatThrownBy(() -> WaterAnalysisJsonReader.read(json("[{\"date\": \"2024-13-01\"}]"),
+                (id, fountainId, deviceId, epochDay, radon) -> { }))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package io.reflectoring.Sprint3SpringBoot.Retrofit.Service;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.IService.IWaterAnalysisService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@ExtendWith(MockitoExtension.class)
+public class WaterAnalysisServiceTest {
+
+    @Mock
+    private IWaterAnalysisService waterAnalysisApi;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Call<WaterAnalysisDto> createCall;
+
+    private WaterAnalysisService waterAnalysisService;
+
+    @BeforeEach
+    public void setUp() {
+        waterAnalysisService = new WaterAnalysisService(waterAnalysisApi, eventPublisher);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        waterAnalysisService.shutdown();
+    }
+
+    @Test
+    public void testSavedEventIsNotPublishedOnTheDispatcherThread() throws Exception {
+        WaterAnalysisDto analysis = new WaterAnalysisDto();
+        when(waterAnalysisApi.createWaterAnalysis(analysis)).thenReturn(createCall);
+        AtomicReference<Callback<WaterAnalysisDto>> callback = new AtomicReference<>();
+        doAnswer(invocation -> {
+            callback.set(invocation.getArgument(0));
+            return null;
+        }).when(createCall).enqueue(any());
+        AtomicReference<Thread> publishedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            publishedOn.set(Thread.currentThread());
+            return null;
+        }).when(eventPublisher).publishEvent(any(WaterAnalysisSavedEvent.class));
+
+        CompletableFuture<WaterAnalysisDto> created = waterAnalysisService.createWaterAnalysisAsync(analysis);
+        // Completes the call from a thread standing in for the OkHttp dispatcher
+        Thread dispatcher = new Thread(() -> callback.get().onResponse(createCall, Response.success(analysis)), "okhttp-test");
+        dispatcher.start();
+
+        assertThat(created.get(5, TimeUnit.SECONDS)).isSameAs(analysis);
+        assertThat(publishedOn.get()).isNotNull().isNotSameAs(dispatcher);
+    }
+}
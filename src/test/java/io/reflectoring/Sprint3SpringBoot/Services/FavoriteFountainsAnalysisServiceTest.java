@@ -0,0 +1,97 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesFountainsDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.UserFavoritesWaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.FountainStatisticsChangedEvent;
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+public class FavoriteFountainsAnalysisServiceTest {
+
+    @Mock
+    private FountainStatisticsService fountainStatisticsService;
+
+    @Mock
+    private FountainService fountainService;
+
+    private FavoriteFountainsAnalysisService favoriteFountainsAnalysisService;
+
+    @BeforeEach
+    public void setUp() {
+        favoriteFountainsAnalysisService = new FavoriteFountainsAnalysisService(fountainStatisticsService, fountainService, 100, 60000,
+                new SimpleMeterRegistry());
+
+        when(fountainStatisticsService.getFountainStatistics(anyCollection()))
+                .thenReturn(Map.of(1, fountain(1, 10.0, 50.0, 2, 2), 2, fountain(2, 30.0, 150.0, 2, 1)));
+        when(fountainService.getFountainsByIds(anyCollection()))
+                .thenReturn(List.of(fountainDto(1, "Praça"), fountainDto(2, "Jardim")));
+    }
+
+    @Test
+    public void testAnalysisIsComputedLocally() {
+        UserFavoritesWaterAnalysisDto analysis = favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(2, 1));
+
+        assertThat(analysis.getTotalTests()).isEqualTo(4);
+        assertThat(analysis.getLowestRadonValue()).isEqualTo(10.0);
+        assertThat(analysis.getLowestRadonFountain()).isEqualTo("Praça");
+        assertThat(analysis.getHighestRadonValue()).isEqualTo(150.0);
+        assertThat(analysis.getHighestRadonFountain()).isEqualTo("Jardim");
+        assertThat(analysis.getDrinkablePercentage()).isEqualTo(75.0);
+    }
+
+    @Test
+    public void testSameSetInAnyOrderIsMemoised() {
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(1, 2));
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(2, 1, 2));
+
+        verify(fountainStatisticsService, times(1)).getFountainStatistics(anyCollection());
+    }
+
+    @Test
+    public void testChangedRowOfMemberInvalidatesOnlyItsSets() {
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(1, 2));
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(2));
+
+        favoriteFountainsAnalysisService.onFountainStatisticsChanged(FountainStatisticsChangedEvent.of(1));
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(1, 2));
+        favoriteFountainsAnalysisService.getFavoriteFountainsAnalysis(favorites(2));
+
+        verify(fountainStatisticsService, times(3)).getFountainStatistics(anyCollection());
+    }
+
+    private static UserFavoritesFountainsDto favorites(Integer... ids) {
+        UserFavoritesFountainsDto favorites = new UserFavoritesFountainsDto();
+        favorites.setFavoriteFountainIds(List.of(ids));
+        return favorites;
+    }
+
+    private static FountainStatistics fountain(int id, double min, double max, int total, int drinkable) {
+        FountainStatistics statistics = new FountainStatistics(id);
+        statistics.minRadonLevel = min;
+        statistics.maxRadonLevel = max;
+        statistics.totalAnalysis = total;
+        statistics.drinkableAnalysis = drinkable;
+        return statistics;
+    }
+
+    private static FountainDto fountainDto(int id, String description) {
+        FountainDto fountain = new FountainDto();
+        fountain.setId(id);
+        fountain.setDescription(description);
+        return fountain;
+    }
+}
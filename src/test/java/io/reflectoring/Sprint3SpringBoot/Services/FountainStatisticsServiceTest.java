@@ -0,0 +1,289 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.FountainStatisticsChangedEvent;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
+import io.reflectoring.Sprint3SpringBoot.Models.FountainStatistics;
+import io.reflectoring.Sprint3SpringBoot.Repositories.FountainStatisticsRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisReadingConsumer;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+public class FountainStatisticsServiceTest {
+
+    @Mock
+    private FountainStatisticsRepository fountainStatisticsRepository;
+
+    @Mock
+    private WaterAnalysisService waterAnalysisService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Integer, FountainStatistics> rows = new HashMap<>();
+
+    private final RadonColumnStore radonColumnStore = new RadonColumnStore(0);
+
+    private FountainStatisticsService fountainStatisticsService;
+
+    @BeforeEach
+    public void setUp() {
+        fountainStatisticsService = new FountainStatisticsService(fountainStatisticsRepository, waterAnalysisService, radonColumnStore,
+                eventPublisher, 100, 0);
+
+        lenient().when(fountainStatisticsRepository.findById(anyInt()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<Integer>getArgument(0))));
+        lenient().when(fountainStatisticsRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<FountainStatistics> found = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                if (rows.containsKey(id)) {
+                    found.add(rows.get(id));
+                }
+            }
+            return found;
+        });
+        lenient().when(fountainStatisticsRepository.save(any(FountainStatistics.class))).thenAnswer(invocation -> {
+            FountainStatistics row = invocation.getArgument(0);
+            rows.put(row.fountainId, row);
+            return row;
+        });
+        lenient().when(fountainStatisticsRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+            for (FountainStatistics row : invocation.<Collection<FountainStatistics>>getArgument(0)) {
+                rows.put(row.fountainId, row);
+            }
+            return null;
+        });
+        lenient().doAnswer(invocation -> rows.remove(invocation.<Integer>getArgument(0)))
+                .when(fountainStatisticsRepository).deleteById(anyInt());
+        lenient().when(fountainStatisticsRepository.findAllFountainIds()).thenAnswer(invocation -> new ArrayList<>(rows.keySet()));
+        lenient().doAnswer(invocation -> {
+            invocation.<Iterable<Integer>>getArgument(0).forEach(rows::remove);
+            return null;
+        }).when(fountainStatisticsRepository).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    public void testFirstReadRebuildsFromHistory() {
+        stubHistory(new double[]{40.0, 120.0, 80.0});
+
+        FountainStatistics statistics = fountainStatisticsService.getFountainStatistics(1);
+
+        assertThat(statistics.getTotalAnalysis()).isEqualTo(3);
+        assertThat(statistics.getAverageRadonLevel()).isEqualTo(80.0);
+        assertThat(statistics.getMinRadonLevel()).isEqualTo(40.0);
+        assertThat(statistics.getMaxRadonLevel()).isEqualTo(120.0);
+        assertThat(statistics.getLastRadonLevel()).isEqualTo(80.0);
+        assertThat(statistics.getDrinkablePercentage()).isCloseTo(66.67, within(0.01));
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testRebuildOverwritesRowsAndDropsOnlyGoneFountains() {
+        rows.put(9, new FountainStatistics(9));
+        rows.put(1, new FountainStatistics(1));
+        stubHistory(new double[]{40.0});
+
+        fountainStatisticsService.getFountainStatistics(1);
+
+        assertThat(rows).containsOnlyKeys(1);
+        assertThat(rows.get(1).getTotalAnalysis()).isEqualTo(1);
+        verify(fountainStatisticsRepository, never()).deleteAllInBatch();
+        verify(fountainStatisticsRepository).deleteAllByIdInBatch(List.of(9));
+    }
+
+    @Test
+    public void testCreatedAnalysisIsAddedWithoutRebuilding() {
+        stubHistory(new double[]{40.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        fountainStatisticsService.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(10, 1, 200.0, LocalDate.of(2025, 2, 1)), true));
+        FountainStatistics statistics = fountainStatisticsService.getFountainStatistics(List.of(1)).get(1);
+
+        assertThat(statistics.getTotalAnalysis()).isEqualTo(2);
+        assertThat(statistics.getMaxRadonLevel()).isEqualTo(200.0);
+        assertThat(statistics.getLastAnalysisId()).isEqualTo(10);
+        assertThat(statistics.getDrinkablePercentage()).isEqualTo(50.0);
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testChangeIsAnnouncedAfterTheRowIsWritten() {
+        stubHistory(new double[]{40.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        fountainStatisticsService.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(10, 1, 200.0, LocalDate.of(2025, 2, 1)), true));
+
+        InOrder inOrder = inOrder(fountainStatisticsRepository, eventPublisher);
+        inOrder.verify(fountainStatisticsRepository).save(any(FountainStatistics.class));
+        inOrder.verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof FountainStatisticsChangedEvent changed && !changed.isAll() && changed.getFountainId() == 1));
+    }
+
+    @Test
+    public void testUpdatedAnalysisIsAppliedWithoutRebuilding() {
+        stubHistory(new double[]{40.0, 120.0, 80.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        // The old maximum drops below the limit
+        update(analysis(2, 1, 60.0, LocalDate.of(2025, 1, 2)));
+        FountainStatistics statistics = fountainStatisticsService.getFountainStatistics(1);
+
+        assertThat(statistics.getTotalAnalysis()).isEqualTo(3);
+        assertThat(statistics.getAverageRadonLevel()).isEqualTo(60.0);
+        assertThat(statistics.getMinRadonLevel()).isEqualTo(40.0);
+        assertThat(statistics.getMaxRadonLevel()).isEqualTo(80.0);
+        assertThat(statistics.getLastRadonLevel()).isEqualTo(80.0);
+        assertThat(statistics.getDrinkablePercentage()).isEqualTo(100.0);
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testUpdatedAnalysisMovesToAnotherFountain() {
+        stubHistory(new double[]{40.0, 120.0, 80.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        update(analysis(3, 2, 80.0, LocalDate.of(2025, 1, 3)));
+        Map<Integer, FountainStatistics> statistics = fountainStatisticsService.getFountainStatistics(List.of(1, 2));
+
+        assertThat(statistics.get(1).getTotalAnalysis()).isEqualTo(2);
+        assertThat(statistics.get(1).getLastAnalysisId()).isEqualTo(2);
+        assertThat(statistics.get(1).getLastRadonLevel()).isEqualTo(120.0);
+        assertThat(statistics.get(2).getTotalAnalysis()).isEqualTo(1);
+        assertThat(statistics.get(2).getMaxRadonLevel()).isEqualTo(80.0);
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof FountainStatisticsChangedEvent changed && !changed.isAll() && changed.getFountainId() == 2));
+    }
+
+    @Test
+    public void testUpdatedAnalysisKeepsExtremesItDidNotHold() {
+        stubHistory(new double[]{40.0, 120.0, 80.0, 90.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        update(analysis(3, 1, 70.0, LocalDate.of(2025, 1, 3)));
+
+        // Neither the minimum, the maximum nor the last reading changed hands, so no reading was scanned
+        FountainStatistics statistics = rows.get(1);
+        assertThat(statistics.getAverageRadonLevel()).isEqualTo(80.0);
+        assertThat(statistics.getMinRadonLevel()).isEqualTo(40.0);
+        assertThat(statistics.getMaxRadonLevel()).isEqualTo(120.0);
+        assertThat(statistics.getLastAnalysisId()).isEqualTo(4);
+    }
+
+    @Test
+    public void testUpdateOfUnknownAnalysisRebuildsOnNextRead() {
+        stubHistory(new double[]{40.0});
+        fountainStatisticsService.getFountainStatistics(1);
+
+        update(analysis(99, 1, 30.0, LocalDate.of(2025, 1, 1)));
+        fountainStatisticsService.getFountainStatistics(1);
+
+        verify(waterAnalysisService, times(2)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testSaveDuringRebuildMarksTheViewStale() {
+        when(waterAnalysisService.streamAllWaterAnalyses(any())).thenAnswer(invocation -> {
+            WaterAnalysisReadingConsumer consumer = invocation.getArgument(0);
+            consumer.accept(1, 1, 1, (int) LocalDate.of(2025, 1, 1).toEpochDay(), 40.0);
+            // Saved while the history streams; it may or may not be part of it
+            fountainStatisticsService.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(10, 1, 200.0, LocalDate.of(2025, 2, 1)), true));
+            return 1;
+        });
+
+        fountainStatisticsService.getFountainStatistics(1);
+        fountainStatisticsService.getFountainStatistics(1);
+
+        verify(waterAnalysisService, times(2)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testConcurrentSavesWaitInsteadOfRebuilding() throws Exception {
+        stubHistory(new double[]{40.0});
+        fountainStatisticsService.getFountainStatistics(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fountainStatisticsRepository.save(any(FountainStatistics.class))).thenAnswer(invocation -> {
+            FountainStatistics row = invocation.getArgument(0);
+            if (row.getLastAnalysisId() == 10) {
+                writing.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            rows.put(row.fountainId, row);
+            return row;
+        });
+
+        Thread first = new Thread(() -> fountainStatisticsService.onWaterAnalysisSaved(
+                new WaterAnalysisSavedEvent(analysis(10, 1, 200.0, LocalDate.of(2025, 2, 1)), true)));
+        first.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread second = new Thread(() -> fountainStatisticsService.onWaterAnalysisSaved(
+                new WaterAnalysisSavedEvent(analysis(11, 1, 20.0, LocalDate.of(2025, 2, 2)), true)));
+        second.start();
+        while (second.getState() != Thread.State.WAITING && second.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        FountainStatistics statistics = fountainStatisticsService.getFountainStatistics(1);
+
+        assertThat(statistics.getTotalAnalysis()).isEqualTo(3);
+        assertThat(statistics.getLastAnalysisId()).isEqualTo(11);
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+    }
+
+    @Test
+    public void testFailedIncrementalWriteRebuildsOnNextRead() {
+        stubHistory(new double[]{40.0});
+        fountainStatisticsService.getFountainStatistics(1);
+        when(fountainStatisticsRepository.save(any(FountainStatistics.class))).thenThrow(new RuntimeException("database down"));
+
+        fountainStatisticsService.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(10, 1, 200.0, LocalDate.of(2025, 2, 1)), true));
+        fountainStatisticsService.getFountainStatistics(1);
+
+        verify(waterAnalysisService, times(2)).streamAllWaterAnalyses(any());
+    }
+
+    private void update(WaterAnalysisDto analysis) {
+        // Both listeners see the event, this service first
+        WaterAnalysisSavedEvent event = new WaterAnalysisSavedEvent(analysis, false);
+        fountainStatisticsService.onWaterAnalysisSaved(event);
+        radonColumnStore.onWaterAnalysisSaved(event);
+    }
+
+    private void stubHistory(double[] radon) {
+        when(waterAnalysisService.streamAllWaterAnalyses(any())).thenAnswer(invocation -> {
+            WaterAnalysisReadingConsumer consumer = invocation.getArgument(0);
+            for (int i = 0; i < radon.length; i++) {
+                consumer.accept(i + 1, 1, 1, (int) LocalDate.of(2025, 1, 1).plusDays(i).toEpochDay(), radon[i]);
+            }
+            return radon.length;
+        });
+    }
+
+    private static WaterAnalysisDto analysis(int id, int fountainId, double radon, LocalDate date) {
+        WaterAnalysisDto analysis = new WaterAnalysisDto();
+        analysis.id = id;
+        analysis.fountainId = fountainId;
+        analysis.setRadonConcentration(radon);
+        analysis.setDate(date);
+        return analysis;
+    }
+}
@@ -0,0 +1,149 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
+import io.reflectoring.Sprint3SpringBoot.Events.WaterAnalysisSavedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RadonColumnStoreTest {
+
+    private final LocalDate today = LocalDate.of(2025, 3, 10);
+
+    private final RadonColumnStore store = new RadonColumnStore(0);
+
+    @Test
+    public void testLoadBuildsDailySummaries() {
+        store.load(List.of(analysis(1, 0.0, today), analysis(3, 40.0, today.minusDays(1)), analysis(2, 0.0, today)));
+
+        RadonSummary summary = store.summarize(today, today);
+
+        assertThat(store.needsLoad()).isFalse();
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getMax()).isEqualTo(0.0);
+        assertThat(summary.getMin()).isEqualTo(0.0);
+        assertThat(store.summarize(null, null).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testSummarizeDateRange() {
+        store.load(List.of(
+                analysis(1, 10.0, today.minusDays(10)),
+                analysis(2, 20.0, today.minusDays(5)),
+                analysis(3, 30.0, today),
+                analysis(4, 40.0, today.plusDays(1))));
+
+        RadonSummary summary = store.summarize(today.minusDays(5), today);
+
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getAverage()).isEqualTo(25.0);
+        assertThat(store.summarize(today.plusDays(2), null).isEmpty()).isTrue();
+        assertThat(store.summarize(null, today.minusDays(10)).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCreatedAnalysisIsAddedToItsDay() {
+        store.load(List.of(analysis(1, 10.0, today)));
+
+        store.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(2, 30.0, today), true));
+
+        RadonSummary summary = store.summarize(today, today);
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getAverage()).isEqualTo(20.0);
+        assertThat(summary.getMax()).isEqualTo(30.0);
+    }
+
+    @Test
+    public void testUpdatedAnalysisReplacesPreviousReading() {
+        store.load(List.of(analysis(1, 10.0, today), analysis(2, 50.0, today)));
+
+        store.onWaterAnalysisSaved(new WaterAnalysisSavedEvent(analysis(2, 20.0, today), false));
+
+        RadonSummary summary = store.summarize(today, today);
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getSum()).isEqualTo(30.0);
+        assertThat(summary.getMax()).isEqualTo(20.0);
+    }
+
+    @Test
+    public void testUpdatedAnalysisMovesBetweenDays() {
+        store.load(List.of(analysis(1, 10.0, today)));
+
+        store.record(analysis(1, 10.0, today.plusDays(1)));
+
+        assertThat(store.summarize(today, today).isEmpty()).isTrue();
+        assertThat(store.summarize(today.plusDays(1), today.plusDays(1)).getCount()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testManyWritesKeepEveryReadingOnce() {
+        store.load(List.of(analysis(1, 10.0, today), analysis(2, 20.0, today.minusDays(1))));
+
+        // Enough writes to merge the pending readings into the columns at least once
+        for (int i = 3; i <= 3000; i++) {
+            store.record(analysis(i, 1.0, today.plusDays(i % 7)));
+            store.record(analysis(i, 2.0, today.plusDays(i % 5)));
+        }
+        store.record(analysis(1, 50.0, today.minusDays(1)));
+
+        assertThat(store.size()).isEqualTo(3000);
+        assertThat(store.summarize(null, null).getSum()).isEqualTo(50.0 + 20.0 + 2998 * 2.0);
+        assertThat(store.summarize(today.minusDays(1), today.minusDays(1)).getMax()).isEqualTo(50.0);
+    }
+
+    @Test
+    public void testAnalysesRecordedDuringASlowLoadAreKept() throws Exception {
+        store.load(List.of(analysis(1, 10.0, today)));
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch recorded = new CountDownLatch(1);
+
+        // The snapshot was read before analysis 3 was created and before analysis 2 was updated to 25
+        Thread loader = new Thread(() -> store.load(consumer -> {
+            consumer.accept(1, 0, 0, (int) today.toEpochDay(), 10.0);
+            consumer.accept(2, 0, 0, (int) today.toEpochDay(), 20.0);
+            streaming.countDown();
+            try {
+                recorded.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        loader.start();
+        assertThat(streaming.await(5, TimeUnit.SECONDS)).isTrue();
+        store.record(analysis(3, 30.0, today));
+        store.record(analysis(2, 25.0, today));
+        recorded.countDown();
+        loader.join(5000);
+
+        RadonSummary summary = store.summarize(today, today);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(summary.getSum()).isEqualTo(10.0 + 25.0 + 30.0);
+        assertThat(summary.getMax()).isEqualTo(30.0);
+    }
+
+    @Test
+    public void testLoadFinishingAfterANewerOneIsDropped() {
+        store.load(consumer -> {
+            consumer.accept(1, 0, 0, (int) today.toEpochDay(), 10.0);
+            // A newer load starts and finishes while this one is still streaming
+            store.load(List.of(analysis(1, 10.0, today), analysis(2, 20.0, today)));
+        });
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.summarize(today, today).getSum()).isEqualTo(30.0);
+    }
+
+    private static WaterAnalysisDto analysis(int id, double radon, LocalDate date) {
+        WaterAnalysisDto analysis = new WaterAnalysisDto();
+        analysis.id = id;
+        analysis.setRadonConcentration(radon);
+        analysis.setDate(date);
+        return analysis;
+    }
+}
@@ -0,0 +1,60 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class RadonReducerTest {
+
+    @Test
+    public void testAllZeroReadings() {
+        RadonSummary summary = RadonReducer.summarize(new double[10], 0, 10);
+
+        assertThat(summary.getCount()).isEqualTo(10);
+        assertThat(summary.getMax()).isEqualTo(0.0);
+        assertThat(summary.getMin()).isEqualTo(0.0);
+        assertThat(summary.getVariance()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void testEmptySliceIsEmpty() {
+        assertThat(RadonReducer.summarize(new double[]{1.0, 2.0}, 1, 1).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testForkJoinMatchesSequential() {
+        double[] radon = new double[RadonReducer.PARALLEL_THRESHOLD * 3 + 17];
+        Random random = new Random(7);
+        for (int i = 0; i < radon.length; i++) {
+            // Large offset with a small spread: the naive sum-of-squares formula loses every digit here
+            radon[i] = 1_000_000.0 + random.nextDouble();
+        }
+
+        RadonSummary sequential = RadonReducer.sequential(radon, 5, radon.length);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            RadonSummary parallel = RadonReducer.forkJoin(radon, 5, radon.length, pool);
+
+            assertThat(parallel.getCount()).isEqualTo(sequential.getCount());
+            assertThat(parallel.getMin()).isEqualTo(sequential.getMin());
+            assertThat(parallel.getMax()).isEqualTo(sequential.getMax());
+            assertThat(parallel.getSum()).isCloseTo(sequential.getSum(), within(1e-3));
+            assertThat(parallel.getVariance()).isCloseTo(1.0 / 12.0, within(1e-3));
+            assertThat(sequential.getVariance()).isCloseTo(1.0 / 12.0, within(1e-3));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMergeWithoutSpreadHasUnknownVariance() {
+        RadonSummary merged = new RadonSummary(2, 10.0, 4.0, 6.0).merge(new RadonSummary(1, 5.0, 5.0, 5.0));
+
+        assertThat(merged.getCount()).isEqualTo(3);
+        assertThat(merged.getVariance()).isNaN();
+    }
+}
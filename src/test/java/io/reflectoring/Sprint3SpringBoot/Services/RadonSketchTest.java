@@ -0,0 +1,70 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class RadonSketchTest {
+
+    @Test
+    public void testQuantilesWithinRelativeAccuracy() {
+        Random random = new Random(7);
+        double[] readings = new double[10_000];
+        RadonSketch sketch = new RadonSketch();
+        for (int i = 0; i < readings.length; i++) {
+            readings[i] = Math.exp(random.nextGaussian() + 4);
+            sketch.add(readings[i]);
+        }
+        Arrays.sort(readings);
+
+        for (double q : new double[]{0.5, 0.9, 0.99}) {
+            double exact = readings[(int) (q * (readings.length - 1))];
+            assertThat(sketch.getQuantile(q)).isCloseTo(exact, within(exact * RadonSketch.DEFAULT_RELATIVE_ACCURACY));
+        }
+    }
+
+    @Test
+    public void testMergeMatchesSingleSketch() {
+        RadonSketch all = new RadonSketch();
+        RadonSketch low = new RadonSketch();
+        RadonSketch high = new RadonSketch();
+        for (int i = 0; i <= 1000; i++) {
+            all.add(i);
+            (i < 300 ? low : high).add(i);
+        }
+
+        RadonSketch merged = low.merge(high);
+
+        assertThat(merged.getCount()).isEqualTo(all.getCount());
+        assertThat(merged.getQuantile(0.0)).isEqualTo(0.0);
+        assertThat(merged.getQuantile(0.5)).isEqualTo(all.getQuantile(0.5));
+        assertThat(merged.getQuantile(0.99)).isEqualTo(all.getQuantile(0.99));
+        assertThat(merged.getQuantile(1.0)).isEqualTo(1000.0);
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        RadonSketch sketch = new RadonSketch();
+        for (double reading : new double[]{0.0, 12.5, 80.0, 150.0, 4000.0}) {
+            sketch.add(reading);
+        }
+
+        RadonSketch read = RadonSketch.fromBytes(sketch.toBytes());
+
+        assertThat(read.getCount()).isEqualTo(5);
+        assertThat(read.getQuantile(0.5)).isEqualTo(sketch.getQuantile(0.5));
+        assertThat(read.getQuantile(1.0)).isEqualTo(4000.0);
+        assertThatThrownBy(() -> RadonSketch.fromBytes(new byte[]{1, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testEmptySketchHasNoQuantile() {
+        assertThat(new RadonSketch().getQuantile(0.5)).isNaN();
+    }
+}
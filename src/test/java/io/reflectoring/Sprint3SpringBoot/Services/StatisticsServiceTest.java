@@ -3,19 +3,25 @@ package io.reflectoring.Sprint3SpringBoot.Services;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.reflectoring.Sprint3SpringBoot.Enums.RollupPeriod;
 import io.reflectoring.Sprint3SpringBoot.Models.Statistics;
+import io.reflectoring.Sprint3SpringBoot.Models.StatisticsRollup;
 import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRepository;
+import io.reflectoring.Sprint3SpringBoot.Repositories.StatisticsRollupRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisReadingConsumer;
 import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
 import io.reflectoring.Sprint3SpringBoot.Dto.WaterAnalysisDto;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -25,9 +31,15 @@ public class StatisticsServiceTest {
     @Mock
     private StatisticsRepository statisticsRepository;
 
+    @Mock
+    private StatisticsRollupRepository statisticsRollupRepository;
+
     @Mock
     private WaterAnalysisService waterAnalysisService; // Mockando o WaterAnalysisService
 
+    @Spy
+    private RadonColumnStore radonColumnStore = new RadonColumnStore(3600000);
+
     @InjectMocks
     private StatisticsService statisticsService;
 
@@ -45,7 +57,14 @@ public class StatisticsServiceTest {
         waterAnalysis2.setDate(date);
 
         // Retornando uma lista com um elemento WaterAnalysis
-        when(waterAnalysisService.getAllWaterAnalyses()).thenReturn(List.of(waterAnalysis1, waterAnalysis2));
+        when(waterAnalysisService.streamAllWaterAnalyses(any())).thenAnswer(invocation -> {
+            WaterAnalysisReadingConsumer consumer = invocation.getArgument(0);
+            for (WaterAnalysisDto analysis : List.of(waterAnalysis1, waterAnalysis2)) {
+                consumer.accept(analysis.id, analysis.fountainId, analysis.deviceId,
+                        (int) analysis.getDate().toEpochDay(), analysis.getRadonConcentration());
+            }
+            return 2;
+        });
 
         // Mockando o comportamento do StatisticsRepository
         when(statisticsRepository.save(any(Statistics.class))).thenReturn(statistics);
@@ -62,7 +81,171 @@ public class StatisticsServiceTest {
 
         // Verificando se o método save() foi chamado apenas uma vez
         verify(statisticsRepository, times(1)).save(any(Statistics.class));
-        // Verificando se o método getAllWaterAnalyses() foi chamado uma vez
-        verify(waterAnalysisService, times(1)).getAllWaterAnalyses();
+        // Verificando se o histórico foi lido uma vez, em streaming
+        verify(waterAnalysisService, times(1)).streamAllWaterAnalyses(any());
+        verify(waterAnalysisService, never()).getAllWaterAnalyses();
+    }
+
+    @Test
+    public void testMonthSummaryUsesLatestRowPerDay() {
+        LocalDate day = LocalDate.of(LocalDate.now().getYear(), 3, 10);
+        List<StatisticsRollup> rollups = stubRollups(List.of(
+                daily(1, day, 10.0, 5.0, 15.0, 2),
+                daily(2, day, 20.0, 10.0, 30.0, 4),
+                daily(3, day.plusDays(1), 40.0, 40.0, 40.0, 1)));
+
+        StatisticsRollup month = statisticsService.getMonthSummary(3);
+
+        assertThat(month.getTotalAnalysis()).isEqualTo(5);
+        assertThat(month.getAverageRadonLevel()).isEqualTo(24.0);
+        assertThat(month.getMinRadonLevel()).isEqualTo(10.0);
+        assertThat(month.getMaxRadonLevel()).isEqualTo(40.0);
+        assertThat(rollups).hasSize(1);
+    }
+
+    @Test
+    public void testMonthSummaryIsBuiltOnlyOnce() {
+        LocalDate day = LocalDate.of(LocalDate.now().getYear(), 3, 10);
+        List<StatisticsRollup> rollups = stubRollups(List.of(daily(1, day, 10.0, 5.0, 15.0, 2)));
+
+        statisticsService.getMonthSummary(3);
+        StatisticsRollup month = statisticsService.getMonthSummary(3);
+
+        assertThat(month.getTotalAnalysis()).isEqualTo(2);
+        assertThat(rollups).hasSize(1);
+        verify(statisticsRepository, times(1)).findByDateBetweenOrderByDateAsc(any(), any());
+    }
+
+    @Test
+    public void testYearSummaryMergesMonthRollups() {
+        int year = LocalDate.now().getYear();
+        List<StatisticsRollup> rollups = stubRollups(List.of(
+                daily(1, LocalDate.of(year, 1, 5), 10.0, 5.0, 20.0, 3),
+                daily(2, LocalDate.of(year, 2, 5), 30.0, 25.0, 60.0, 1)));
+
+        StatisticsRollup yearSummary = statisticsService.getYearSummary(year);
+
+        assertThat(yearSummary.period).isEqualTo(RollupPeriod.Year);
+        assertThat(yearSummary.getTotalAnalysis()).isEqualTo(4);
+        assertThat(yearSummary.getAverageRadonLevel()).isEqualTo(15.0);
+        assertThat(yearSummary.getMinRadonLevel()).isEqualTo(5.0);
+        assertThat(yearSummary.getMaxRadonLevel()).isEqualTo(60.0);
+        // January, February and the year itself; empty months are not stored
+        assertThat(rollups).hasSize(3);
+    }
+
+    @Test
+    public void testRollupsMergeDailySketches() {
+        int year = LocalDate.now().getYear();
+        stubRollups(List.of(
+                withSketch(daily(1, LocalDate.of(year, 1, 5), 20.0, 10.0, 30.0, 3), 10.0, 20.0, 30.0),
+                withSketch(daily(2, LocalDate.of(year, 1, 6), 150.0, 100.0, 200.0, 2), 100.0, 200.0)));
+        RadonSketch expected = sketchOf(10.0, 20.0, 30.0).merge(sketchOf(100.0, 200.0));
+
+        StatisticsRollup yearSummary = statisticsService.getYearSummary(year);
+        StatisticsRollup month = statisticsRollupRepository.findByPeriodAndDate(RollupPeriod.Month, LocalDate.of(year, 1, 1));
+
+        assertThat(month.p50RadonLevel).isEqualTo(expected.getQuantile(0.5));
+        assertThat(month.p99RadonLevel).isEqualTo(expected.getQuantile(0.99));
+        assertThat(yearSummary.p50RadonLevel).isEqualTo(expected.getQuantile(0.5));
+        assertThat(yearSummary.p90RadonLevel).isEqualTo(expected.getQuantile(0.9));
+        assertThat(RadonSketch.fromBytes(yearSummary.radonSketch).getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testDayWithoutSketchLeavesPercentilesEmpty() {
+        LocalDate day = LocalDate.of(LocalDate.now().getYear(), 3, 10);
+        stubRollups(List.of(
+                withSketch(daily(1, day, 20.0, 10.0, 30.0, 3), 10.0, 20.0, 30.0),
+                daily(2, day.plusDays(1), 40.0, 40.0, 40.0, 1)));
+
+        StatisticsRollup month = statisticsService.getMonthSummary(3);
+
+        assertThat(month.getTotalAnalysis()).isEqualTo(4);
+        assertThat(month.p50RadonLevel).isNull();
+        assertThat(month.p99RadonLevel).isNull();
+        assertThat(month.radonSketch).isNull();
+    }
+
+    @Test
+    public void testYearRollupIncludesMonthsSavedBeforeRollups() {
+        int year = LocalDate.now().getYear() - 1;
+        LocalDate april = LocalDate.of(year, 4, 10);
+        // January and February were saved before rollups existed, so they have daily rows only
+        List<Statistics> daily = new ArrayList<>(List.of(
+                daily(1, LocalDate.of(year, 1, 5), 10.0, 5.0, 20.0, 3),
+                daily(2, LocalDate.of(year, 2, 5), 30.0, 25.0, 60.0, 1)));
+        List<StatisticsRollup> rollups = stubRollups(daily);
+        when(statisticsRepository.save(any(Statistics.class))).thenAnswer(invocation -> {
+            Statistics statistics = invocation.getArgument(0);
+            statistics.id = 3;
+            daily.add(statistics);
+            return statistics;
+        });
+        when(waterAnalysisService.streamAllWaterAnalyses(any())).thenAnswer(invocation -> {
+            WaterAnalysisReadingConsumer consumer = invocation.getArgument(0);
+            consumer.accept(1, 1, 1, (int) april.toEpochDay(), 100.0);
+            return 1;
+        });
+
+        statisticsService.createStatistics(april);
+        StatisticsRollup yearSummary = statisticsService.getYearSummary(year);
+
+        assertThat(yearSummary.getTotalAnalysis()).isEqualTo(5);
+        assertThat(yearSummary.getAverageRadonLevel()).isEqualTo(32.0);
+        assertThat(yearSummary.getMinRadonLevel()).isEqualTo(5.0);
+        assertThat(yearSummary.getMaxRadonLevel()).isEqualTo(100.0);
+        // January, February, April and the year
+        assertThat(rollups).hasSize(4);
+    }
+
+    /**
+     * Serves the given daily rows by date range and keeps saved rollups in a list.
+     *
+     * @return the saved rollups.
+     */
+    private List<StatisticsRollup> stubRollups(List<Statistics> daily) {
+        List<StatisticsRollup> rollups = new ArrayList<>();
+        when(statisticsRepository.findByDateBetweenOrderByDateAsc(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            return daily.stream().filter(statistics -> !statistics.date.isBefore(start) && !statistics.date.isAfter(end)).toList();
+        });
+        when(statisticsRollupRepository.findByPeriodAndDate(any(), any())).thenAnswer(invocation -> rollups.stream()
+                .filter(rollup -> rollup.period == invocation.getArgument(0) && rollup.date.equals(invocation.getArgument(1)))
+                .findFirst().orElse(null));
+        lenient().when(statisticsRollupRepository.findByPeriodAndDateBetween(any(), any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(1);
+            LocalDate end = invocation.getArgument(2);
+            return rollups.stream().filter(rollup -> rollup.period == invocation.getArgument(0)
+                    && !rollup.date.isBefore(start) && !rollup.date.isAfter(end)).toList();
+        });
+        when(statisticsRollupRepository.save(any(StatisticsRollup.class))).thenAnswer(invocation -> {
+            StatisticsRollup rollup = invocation.getArgument(0);
+            if (!rollups.contains(rollup)) {
+                rollups.add(rollup);
+            }
+            return rollup;
+        });
+        return rollups;
+    }
+
+    private static Statistics daily(int id, LocalDate date, double average, double min, double max, int total) {
+        Statistics statistics = new Statistics(average, max, min, total, date);
+        statistics.id = id;
+        return statistics;
+    }
+
+    private static Statistics withSketch(Statistics statistics, double... readings) {
+        statistics.radonSketch = sketchOf(readings).toBytes();
+        return statistics;
+    }
+
+    private static RadonSketch sketchOf(double... readings) {
+        RadonSketch sketch = new RadonSketch();
+        for (double reading : readings) {
+            sketch.add(reading);
+        }
+        return sketch;
     }
-}
\ No newline at end of file
+}
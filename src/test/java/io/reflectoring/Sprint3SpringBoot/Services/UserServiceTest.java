@@ -0,0 +1,247 @@
+package io.reflectoring.Sprint3SpringBoot.Services;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.reflectoring.Sprint3SpringBoot.Dto.FavouritesPageDto;
+import io.reflectoring.Sprint3SpringBoot.Dto.FountainDto;
+import io.reflectoring.Sprint3SpringBoot.Enums.Role;
+import io.reflectoring.Sprint3SpringBoot.Exceptions.ParamException;
+import io.reflectoring.Sprint3SpringBoot.Exceptions.RoleNotAcepted;
+import io.reflectoring.Sprint3SpringBoot.Models.User;
+import io.reflectoring.Sprint3SpringBoot.Repositories.UserRepository;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FanOutExecutor;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.FountainService;
+import io.reflectoring.Sprint3SpringBoot.Retrofit.Service.WaterAnalysisService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+@ExtendWith(MockitoExtension.class)
+public class UserServiceTest {
+
+    private static final int USER_ID = 1;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FountainService fountainService;
+
+    @Mock
+    private WaterAnalysisService waterAnalysisService;
+
+    @Mock
+    private FanOutExecutor fanOutExecutor;
+
+    @InjectMocks
+    private UserService userService;
+
+    @Test
+    public void testFirstPageProbesOneIdPastThePage() {
+        stubUser(Role.Client);
+        stubFavourites(3, 7, 9, 12, 20);
+        stubFountains();
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, null, 2);
+
+        verify(userRepository).findFavouriteIdsAfter(USER_ID, Integer.MIN_VALUE, PageRequest.of(0, 3));
+        verify(fountainService).getFountainsByIds(List.of(3, 7));
+        assertThat(page.getSize()).isEqualTo(2);
+        assertThat(idsOf(page)).containsExactly(3, 7);
+        assertThat(page.getNextCursor()).isEqualTo(7);
+    }
+
+    @Test
+    public void testNextPageStartsAfterTheCursor() {
+        stubUser(Role.Client);
+        stubFavourites(3, 7, 9, 12, 20);
+        stubFountains();
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, 7, 2);
+
+        verify(userRepository).findFavouriteIdsAfter(USER_ID, 7, PageRequest.of(0, 3));
+        assertThat(idsOf(page)).containsExactly(9, 12);
+        assertThat(page.getNextCursor()).isEqualTo(12);
+    }
+
+    @Test
+    public void testFullLastPageHasNoNextCursor() {
+        stubUser(Role.Client);
+        stubFavourites(3, 7, 9, 12, 20);
+        stubFountains();
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, 9, 2);
+
+        assertThat(idsOf(page)).containsExactly(12, 20);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testShortLastPageHasNoNextCursor() {
+        stubUser(Role.Client);
+        stubFavourites(3, 7, 9, 12, 20);
+        stubFountains();
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, 12, 2);
+
+        assertThat(idsOf(page)).containsExactly(20);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testEmptyPageIsNotResolvedUpstream() {
+        stubUser(Role.Client);
+        stubFavourites(3, 7, 9, 12, 20);
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, 20, 2);
+
+        assertThat(page.getFountains()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        verifyNoInteractions(fountainService);
+    }
+
+    @Test
+    public void testPageSizeIsClampedToTheMaximum() {
+        stubUser(Role.Client);
+        stubFavourites(IntStream.rangeClosed(1, 150).toArray());
+        stubFountains();
+
+        FavouritesPageDto page = userService.getFavouritesPage(USER_ID, null, 1000);
+
+        verify(userRepository).findFavouriteIdsAfter(USER_ID, Integer.MIN_VALUE,
+                PageRequest.of(0, UserService.MAX_FAVOURITES_PAGE_SIZE + 1));
+        assertThat(page.getSize()).isEqualTo(UserService.MAX_FAVOURITES_PAGE_SIZE);
+        assertThat(page.getFountains()).hasSize(UserService.MAX_FAVOURITES_PAGE_SIZE);
+        assertThat(page.getNextCursor()).isEqualTo(UserService.MAX_FAVOURITES_PAGE_SIZE);
+    }
+
+    @Test
+    public void testNonPositivePageSizeIsRejected() {
+        stubUser(Role.Client);
+
+        assertThatThrownBy(() -> userService.getFavouritesPage(USER_ID, null, 0)).isInstanceOf(ParamException.class);
+        assertThatThrownBy(() -> userService.getFavouritesPage(USER_ID, null, -1)).isInstanceOf(ParamException.class);
+        verify(userRepository, never()).findFavouriteIdsAfter(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void testPageOfNonClientIsRejected() {
+        stubUser(Role.Tester);
+
+        assertThatThrownBy(() -> userService.getFavouritesPage(USER_ID, null, 20)).isInstanceOf(RoleNotAcepted.class);
+        verify(userRepository, never()).findFavouriteIdsAfter(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void testFavouriteIdsAreNotResolvedUpstream() {
+        stubUser(Role.Client);
+        when(userRepository.findFavouriteIds(USER_ID)).thenReturn(List.of(3, 7, 9));
+
+        assertThat(userService.getUserFavouriteIds(USER_ID)).containsExactly(3, 7, 9);
+        verifyNoInteractions(fountainService);
+    }
+
+    @Test
+    public void testFavouriteIdsOfNonClientAreRejected() {
+        stubUser(Role.Tester);
+
+        assertThatThrownBy(() -> userService.getUserFavouriteIds(USER_ID)).isInstanceOf(RoleNotAcepted.class);
+        verify(userRepository, never()).findFavouriteIds(anyInt());
+    }
+
+    @Test
+    public void testAddingAnExistingFavouriteRemovesIt() {
+        stubUser(Role.Client);
+        when(userRepository.removeFavourite(USER_ID, 7)).thenReturn(1);
+        when(fountainService.getFountainById(7)).thenReturn(fountain(7));
+
+        assertThat(userService.addFavourite(USER_ID, 7).getId()).isEqualTo(7);
+        verify(userRepository, never()).addFavourite(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testAddingANewFavouriteInsertsIt() {
+        stubUser(Role.Client);
+        when(userRepository.removeFavourite(USER_ID, 7)).thenReturn(0);
+        when(fountainService.getFountainById(7)).thenReturn(fountain(7));
+
+        assertThat(userService.addFavourite(USER_ID, 7).getId()).isEqualTo(7);
+        verify(userRepository).addFavourite(USER_ID, 7);
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    public void testConcurrentlyAddedFavouriteIsNotAnError() {
+        stubUser(Role.Client);
+        when(userRepository.removeFavourite(USER_ID, 7)).thenReturn(0);
+        when(userRepository.addFavourite(USER_ID, 7)).thenThrow(new DataIntegrityViolationException("uk_user_favourites"));
+        when(fountainService.getFountainById(7)).thenReturn(fountain(7));
+
+        assertThat(userService.addFavourite(USER_ID, 7).getId()).isEqualTo(7);
+    }
+
+    @Test
+    public void testXFavouritesAreTheLowestIds() {
+        stubUser(Role.Client);
+        stubFavourites(20, 3, 12, 7, 9);
+        stubFountains();
+
+        List<FountainDto> favourites = userService.getXFavourites(USER_ID, 3);
+
+        verify(userRepository).findFavouriteIdsAfter(USER_ID, Integer.MIN_VALUE, PageRequest.of(0, 3));
+        assertThat(favourites).extracting(FountainDto::getId).containsExactly(3, 7, 9);
+    }
+
+    @Test
+    public void testXFavouritesOfMoreThanTheUserHasReturnsThemAll() {
+        stubUser(Role.Client);
+        stubFavourites(20, 3);
+        stubFountains();
+
+        assertThat(userService.getXFavourites(USER_ID, 5)).extracting(FountainDto::getId).containsExactly(3, 20);
+    }
+
+    private void stubUser(Role role) {
+        User user = new User("User", "user@example.com", "password", role);
+        user.setId(USER_ID);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+    }
+
+    // Answers the keyset query the way the database does: ids after the cursor, ascending, up to the page size
+    private void stubFavourites(int... ids) {
+        List<Integer> sorted = IntStream.of(ids).sorted().boxed().toList();
+        when(userRepository.findFavouriteIdsAfter(eq(USER_ID), anyInt(), any())).thenAnswer(invocation -> {
+            int after = invocation.getArgument(1);
+            Pageable pageable = invocation.getArgument(2);
+            return sorted.stream().filter(id -> id > after).limit(pageable.getPageSize()).toList();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubFountains() {
+        when(fountainService.getFountainsByIds(any())).thenAnswer(invocation ->
+                ((Collection<Integer>) invocation.getArgument(0)).stream().map(UserServiceTest::fountain).toList());
+    }
+
+    private static FountainDto fountain(int id) {
+        FountainDto fountain = new FountainDto();
+        fountain.setId(id);
+        return fountain;
+    }
+
+    private static List<Integer> idsOf(FavouritesPageDto page) {
+        return page.getFountains().stream().map(FountainDto::getId).toList();
+    }
+}